@@ -2,6 +2,7 @@
 db.users.insertOne({
   name: "Admin",
   email: "admin@admin.com",
+  emailKey: "admin@admin.com",
   role: "admin",
   status: "active",
   joinDate: "2025-06-25",
@@ -33,6 +33,23 @@ export async function login(email: string, password: string) {
   return handleResponse(res);
 }
 
+// Trades the stored refresh token for a new access token (short-lived in stateless mode)
+export async function refreshSession() {
+  const refreshToken = localStorage.getItem('refreshToken');
+  if (!refreshToken) {
+    throw new Error('No refresh token');
+  }
+  const res = await fetch(`${API_BASE}/auth/refresh`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json' },
+    body: JSON.stringify({ refreshToken })
+  });
+  const data = await handleResponse(res);
+  localStorage.setItem('token', data.token);
+  localStorage.setItem('refreshToken', data.refreshToken);
+  return data;
+}
+
 export async function registerBroker(data: any) {
   const res = await fetch(`${API_BASE}/auth/register-broker`, {
     method: 'POST',
@@ -76,8 +93,31 @@ export async function deleteUser(id: string) {
 }
 
 // Vehicles CRUD
-export async function getVehicles() {
-  const res = await fetch(`${API_BASE}/vehicles`, { headers: authHeaders() });
+// 'card' returns the lightweight listing rows, 'full' the complete vehicle documents
+export async function getVehicles(view: 'card' | 'full' = 'card') {
+  const res = await fetch(`${API_BASE}/vehicles?view=${view}`, { headers: authHeaders() });
+  return handleResponse(res);
+}
+// One keyset page of cards matching the filters; pass the returned nextCursor back to get the next page
+export async function searchVehiclePage(filters: Record<string, string> = {}, sort = 'id',
+                                        direction: 'asc' | 'desc' = 'asc', cursor?: string, size = 24) {
+  const params = new URLSearchParams({ ...filters, sort, direction, size: String(size) });
+  if (cursor) {
+    params.set('cursor', cursor);
+  }
+  const res = await fetch(`${API_BASE}/vehicles/search?${params}`, { headers: authHeaders() });
+  return handleResponse(res);
+}
+// Filter sidebar counts (makes, fuel types, transmissions, years, price bands) for the given filters
+export async function getVehicleFacets(filters: Record<string, string> = {}) {
+  const params = new URLSearchParams({ ...filters, view: 'facets' });
+  const res = await fetch(`${API_BASE}/vehicles/search?${params}`, { headers: authHeaders() });
+  return handleResponse(res);
+}
+// Make/model autocomplete completions with vehicle counts
+export async function suggestVehicles(q: string, limit = 8) {
+  const params = new URLSearchParams({ q, limit: String(limit) });
+  const res = await fetch(`${API_BASE}/vehicles/suggest?${params}`, { headers: authHeaders() });
   return handleResponse(res);
 }
 export async function getVehicle(id: string) {
@@ -107,6 +147,14 @@ export async function deleteVehicle(id: string) {
   });
   return handleResponse(res);
 }
+// The image id changes on every upload, so it doubles as a cache-busting version
+export function vehicleImageUrl(id: string, imageId: string) {
+  return `${API_BASE}/vehicles/${id}/image?v=${imageId}`;
+}
+// Resolves server-relative links such as VehicleCardDto.thumbnailUrl against the API host
+export function apiUrl(path: string) {
+  return new URL(path, API_BASE).toString();
+}
 export async function uploadVehicleImage(id: string, file: File) {
   const formData = new FormData();
   formData.append('file', file);
@@ -124,6 +172,12 @@ export async function getDeals(brokerId?: string) {
   const res = await fetch(url, { headers: authHeaders() });
   return handleResponse(res);
 }
+// Deals with vehicleMake, vehicleModel and brokerName resolved server-side
+export async function getDealSummaries(brokerId?: string) {
+  const url = brokerId ? `${API_BASE}/deals/summaries?brokerId=${brokerId}` : `${API_BASE}/deals/summaries`;
+  const res = await fetch(url, { headers: authHeaders() });
+  return handleResponse(res);
+}
 export async function createDeal(data: any) {
   const res = await fetch(`${API_BASE}/deals`, {
     method: 'POST',
@@ -15,7 +15,7 @@ import {
 } from 'react-icons/fa';
 import { GiAutoRepair } from 'react-icons/gi';
 import { MdElectricScooter } from 'react-icons/md';
-import { getVehicles } from '../api';
+import { searchVehiclePage, getVehicleFacets, apiUrl } from '../api';
 import { toast } from 'react-toastify';
 
 interface Vehicle {
@@ -32,7 +32,7 @@ interface Vehicle {
   condition?: 'brand-new' | 'registered' | 'unregistered';
   location?: string;
   image?: string;
-  imageBase64?: string;
+  thumbnailUrl?: string;
   featured?: boolean;
   engineCapacity?: string;
   manufactureDate?: string;
@@ -51,6 +51,45 @@ interface FilterOptions {
   location: string;
 }
 
+const PAGE_SIZE = 24;
+
+// Sort options map onto the server's keyset sorts
+const SORTS: Record<string, { sort: string; direction: 'asc' | 'desc' }> = {
+  'price-low': { sort: 'price', direction: 'asc' },
+  'price-high': { sort: 'price', direction: 'desc' },
+  'year-new': { sort: 'year', direction: 'desc' },
+  'year-old': { sort: 'year', direction: 'asc' },
+  'mileage-low': { sort: 'mileage', direction: 'asc' }
+};
+
+const PRICE_RANGES: Record<string, Record<string, string>> = {
+  'under-500k': { maxPrice: '500000' },
+  '500k-1m': { minPrice: '500000', maxPrice: '1000000' },
+  '1m-3m': { minPrice: '1000000', maxPrice: '3000000' },
+  '3m-5m': { minPrice: '3000000', maxPrice: '5000000' },
+  'over-5m': { minPrice: '5000000' }
+};
+
+const YEAR_RANGES: Record<string, Record<string, string>> = {
+  '2023-2024': { minYear: '2023', maxYear: '2024' },
+  '2020-2022': { minYear: '2020', maxYear: '2022' },
+  '2017-2019': { minYear: '2017', maxYear: '2019' },
+  '2014-2016': { minYear: '2014', maxYear: '2016' },
+  'before-2014': { maxYear: '2013' }
+};
+
+// Filters the search and facet endpoints apply; category, condition and location are derived client-side
+const serverFilters = (filter: FilterOptions): Record<string, string> => {
+  const params: Record<string, string> = {
+    ...(PRICE_RANGES[filter.priceRange] || {}),
+    ...(YEAR_RANGES[filter.yearRange] || {})
+  };
+  if (filter.brand !== 'all' && filter.brand !== 'All Brands') params.make = filter.brand;
+  if (filter.fuelType !== 'all') params.fuelType = filter.fuelType;
+  if (filter.transmission !== 'all') params.transmission = filter.transmission;
+  return params;
+};
+
 const VehicleInventory: React.FC = () => {
   const [activeFilter, setActiveFilter] = useState<FilterOptions>({
     category: 'all',
@@ -69,35 +108,66 @@ const VehicleInventory: React.FC = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
 
-  // Fetch vehicles from API
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [totalCount, setTotalCount] = useState(0);
+  const [loadingMore, setLoadingMore] = useState(false);
+  // Brand options come from the server-side facet counts rather than the loaded pages
+  const [facetMakes, setFacetMakes] = useState<string[]>([]);
+
+  const filters = serverFilters(activeFilter);
+  const filterKey = JSON.stringify(filters);
+  const { sort, direction } = SORTS[sortBy] || SORTS['price-low'];
+
+  const toInventoryVehicle = (v: Vehicle): Vehicle => ({
+    ...v,
+    title: `${v.make} ${v.model}`, // Create title from make and model
+    category: mapVehicleTypeToCategory(v), // Map vehicle type to category
+    condition: v.status === 'brand-new' ? 'brand-new' : 'registered', // Map status to condition
+    location: 'Colombo' // Default location if not available
+  });
+
+  // Filtering, sorting and paging run server-side; the first page and the facet counts reload
+  // whenever a server-side filter or the sort order changes
   useEffect(() => {
-    const fetchVehicles = async () => {
-      try {
-        setLoading(true);
-        const data = await getVehicles();
-        
-        // Map backend data to expected frontend format if needed
-        const mappedVehicles = data.map((v: Vehicle) => ({
-          ...v,
-          title: `${v.make} ${v.model}`, // Create title from make and model
-          category: mapVehicleTypeToCategory(v), // Map vehicle type to category
-          condition: v.status === 'brand-new' ? 'brand-new' : 'registered', // Map status to condition
-          location: 'Colombo' // Default location if not available
-        }));
-
-        setVehicles(mappedVehicles);
+    let cancelled = false;
+    Promise.all([searchVehiclePage(filters, sort, direction, undefined, PAGE_SIZE), getVehicleFacets(filters)])
+      .then(([page, facets]) => {
+        if (cancelled) return;
+        setVehicles(page.items.map(toInventoryVehicle));
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+        setTotalCount(facets.total);
+        setFacetMakes(facets.makes.map((m: { value: string }) => m.value));
         setError(null);
-      } catch (err) {
+      })
+      .catch((err) => {
+        if (cancelled) return;
         console.error('Failed to fetch vehicles:', err);
         setError('Failed to load vehicles. Please try again later.');
         toast.error('Could not load vehicles from server');
-      } finally {
-        setLoading(false);
-      }
+      })
+      .finally(() => {
+        if (!cancelled) setLoading(false);
+      });
+    return () => {
+      cancelled = true;
     };
+    // filterKey stands in for filters, which is rebuilt on every render
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [filterKey, sort, direction]);
 
-    fetchVehicles();
-  }, []);
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    try {
+      const page = await searchVehiclePage(filters, sort, direction, nextCursor, PAGE_SIZE);
+      setVehicles((loaded) => [...loaded, ...page.items.map(toInventoryVehicle)]);
+      setNextCursor(page.hasMore ? page.nextCursor : null);
+    } catch (err) {
+      console.error('Failed to fetch more vehicles:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
 
   // Helper function to determine vehicle category based on make/model
   const mapVehicleTypeToCategory = (vehicle: Vehicle): 'car' | 'bike' | 'scooter' | 'threewheeler' => {
@@ -179,39 +249,12 @@ const VehicleInventory: React.FC = () => {
     { id: 'threewheeler', name: 'Three Wheelers', icon: 'FaTruck' }
   ];
 
-  // Generate brands from available vehicles
-  const generateBrands = () => {
-    const allMakes = Array.from(new Set(vehicles.map(v => v.make)));
-    return ['All Brands', ...allMakes];
-  };
-
-  const brands = generateBrands();
+  const brands = ['All Brands', ...facetMakes];
   const locations = ['All Locations', 'Colombo', 'Kandy', 'Galle', 'Matara', 'Negombo', 'Kurunegala', 'Anuradhapura', 'Jaffna'];
 
-  // Apply filters
-  const filteredVehicles = vehicles.filter(vehicle => {
-    if (activeFilter.category !== 'all' && vehicle.category !== activeFilter.category) return false;
-    if (activeFilter.brand !== 'all' && activeFilter.brand !== 'All Brands' && vehicle.make !== activeFilter.brand) return false;
-    return true;
-  });
-  
-  // Sort vehicles according to selected option
-  const sortedVehicles = [...filteredVehicles].sort((a, b) => {
-    switch (sortBy) {
-      case 'price-low':
-        return a.price - b.price;
-      case 'price-high':
-        return b.price - a.price;
-      case 'year-new':
-        return b.year - a.year;
-      case 'year-old':
-        return a.year - b.year;
-      case 'mileage-low':
-        return a.mileage - b.mileage;
-      default:
-        return 0;
-    }
-  });
+  // Category is derived from make and model, so it narrows the loaded pages only
+  const filteredVehicles = vehicles.filter(vehicle =>
+    activeFilter.category === 'all' || vehicle.category === activeFilter.category);
 
   const formatPrice = (price: number) => {
     if (price >= 10000000) {
@@ -277,7 +320,7 @@ const VehicleInventory: React.FC = () => {
                       ? 'bg-white text-blue-700'
                       : 'bg-gray-100 text-gray-600 group-hover:bg-blue-100 group-hover:text-blue-700'
                   }`}>
-                    {category.id === 'all' ? vehicles.length : vehicles.filter(v => v.category === category.id).length}
+                    {category.id === 'all' ? totalCount : vehicles.filter(v => v.category === category.id).length}
                   </span>
                 </button>
               ))}
@@ -405,7 +448,7 @@ const VehicleInventory: React.FC = () => {
             <div className="flex flex-col sm:flex-row justify-between items-center mb-8">
               <div className="flex items-center space-x-6 mb-4 sm:mb-0">
                 <span className="text-lg font-semibold text-gray-700 bg-gray-100 px-4 py-2 rounded-xl">
-                  Showing {sortedVehicles.length} of {vehicles.length} vehicles
+                  Showing {filteredVehicles.length} of {totalCount} vehicles
                 </span>
                 
                 {/* View Mode Toggle */}
@@ -450,7 +493,7 @@ const VehicleInventory: React.FC = () => {
             </div>
 
             {/* No Results Message */}
-            {sortedVehicles.length === 0 && (
+            {filteredVehicles.length === 0 && (
               <div className="bg-blue-50 border border-blue-200 text-blue-800 px-6 py-12 rounded-xl text-center my-8">
                 <h3 className="text-xl font-bold mb-2">No vehicles found</h3>
                 <p>Try adjusting your filters to see more results.</p>
@@ -473,13 +516,13 @@ const VehicleInventory: React.FC = () => {
             )}
 
             {/* Vehicle Grid/List */}
-            {sortedVehicles.length > 0 && (
+            {filteredVehicles.length > 0 && (
               <div className={`${
                 viewMode === 'grid' 
                   ? 'grid grid-cols-2 md:grid-cols-3 lg:grid-cols-4 xl:grid-cols-5 gap-4' 
                   : 'space-y-3'
               }`}>
-                {sortedVehicles.map((vehicle) => (
+                {filteredVehicles.map((vehicle) => (
                   <div
                     key={vehicle.id}
                     className={`group bg-white rounded-lg shadow-md hover:shadow-lg transition-all duration-300 overflow-hidden border border-gray-200 hover:border-blue-300 ${
@@ -497,9 +540,10 @@ const VehicleInventory: React.FC = () => {
                       <div className="absolute top-2 right-2 bg-blue-600 text-white px-2 py-1 rounded text-xs font-medium">
                         {vehicle.condition?.toUpperCase() || vehicle.status?.toUpperCase() || 'AVAILABLE'}
                       </div>
-                      {vehicle.imageBase64 ? (
+                      {vehicle.thumbnailUrl ? (
                         <img 
-                          src={`data:image/jpeg;base64,${vehicle.imageBase64}`} 
+                          src={apiUrl(vehicle.thumbnailUrl)} 
+                          loading="lazy"
                           alt={`${vehicle.make} ${vehicle.model}`}
                           className="w-full h-full object-cover"
                         />
@@ -562,11 +606,14 @@ const VehicleInventory: React.FC = () => {
               </div>
             )}
 
-            {/* Load More Button - Only show if we might have more to load */}
-            {sortedVehicles.length > 0 && sortedVehicles.length % 10 === 0 && (
+            {/* Load More Button - Only shown while the server reports further pages */}
+            {nextCursor && (
               <div className="text-center mt-16">
-                <button className="bg-gradient-to-r from-black via-gray-800 to-blue-900 hover:from-blue-900 hover:via-black hover:to-gray-900 text-white font-bold py-4 px-12 rounded-2xl transition-all duration-300 shadow-2xl transform hover:scale-105 hover:shadow-3xl">
-                  Load More Vehicles
+                <button
+                  onClick={loadMore}
+                  disabled={loadingMore}
+                  className="bg-gradient-to-r from-black via-gray-800 to-blue-900 hover:from-blue-900 hover:via-black hover:to-gray-900 text-white font-bold py-4 px-12 rounded-2xl transition-all duration-300 shadow-2xl transform hover:scale-105 hover:shadow-3xl">
+                  {loadingMore ? 'Loading...' : 'Load More Vehicles'}
                 </button>
               </div>
             )}
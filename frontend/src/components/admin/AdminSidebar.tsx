@@ -59,6 +59,7 @@ const AdminSidebar: React.FC<AdminSidebarProps> = ({ activeTab, setActiveTab })
         <button 
           onClick={() => {
             localStorage.removeItem('token');
+            localStorage.removeItem('refreshToken');
             window.location.href = '/login';
           }}
           className="w-full flex items-center space-x-3 px-4 py-3 rounded-xl text-slate-300 hover:bg-red-600 hover:text-white transition-all duration-200"
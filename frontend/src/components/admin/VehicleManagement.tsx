@@ -31,7 +31,7 @@ interface Vehicle {
   engineCapacity?: string;
   manufactureDate?: string;
   description?: string;
-  imageBase64?: string;
+  imageId?: string;
 }
 
 const VehicleManagement: React.FC = () => {
@@ -65,7 +65,7 @@ const VehicleManagement: React.FC = () => {
   const [form, setForm] = useState<any>(initialFormState);
 
   useEffect(() => {
-    api.getVehicles().then(setVehicles);
+    api.getVehicles('full').then(setVehicles);
   }, []);
 
   // Filter and sort vehicles
@@ -103,7 +103,7 @@ const VehicleManagement: React.FC = () => {
     });
     if (result.isConfirmed) {
       await api.deleteVehicle(vehicleId.toString());
-      api.getVehicles().then(setVehicles);
+      api.getVehicles('full').then(setVehicles);
       alert('Vehicle deleted successfully!');
     }
   };
@@ -242,7 +242,7 @@ const VehicleManagement: React.FC = () => {
     if (form.imageFile) {
       await api.uploadVehicleImage(newVehicle.id.toString(), form.imageFile);
     }
-    api.getVehicles().then(setVehicles);
+    api.getVehicles('full').then(setVehicles);
     closeModal();
     alert('Vehicle added successfully!');
   };
@@ -267,7 +267,7 @@ const VehicleManagement: React.FC = () => {
     if (form.imageFile) {
       await api.uploadVehicleImage(editVehicle.id.toString(), form.imageFile);
     }
-    api.getVehicles().then(setVehicles);
+    api.getVehicles('full').then(setVehicles);
     closeModal();
     alert('Vehicle updated successfully!');
   };
@@ -433,10 +433,10 @@ const VehicleManagement: React.FC = () => {
             className="bg-white rounded-2xl shadow-lg border border-gray-100 overflow-hidden hover:shadow-xl transition-all duration-300"
           >            {/* Vehicle Image */}
             <div className="h-48 relative overflow-hidden">
-              {vehicle.imageBase64 ? (
+              {vehicle.imageId ? (
                 <>
                   <img 
-                    src={`data:image/jpeg;base64,${vehicle.imageBase64}`} 
+                    src={api.vehicleImageUrl(vehicle.id, vehicle.imageId)} 
                     alt={`${vehicle.make} ${vehicle.model}`}
                     className="w-full h-full object-cover transition-transform duration-300 hover:scale-105"
                   />
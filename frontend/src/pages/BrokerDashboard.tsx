@@ -29,6 +29,7 @@ const BrokerDashboard: React.FC = () => {
 
   const handleLogout = () => {
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     window.location.href = '/login';
   };
 
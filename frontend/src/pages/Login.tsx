@@ -31,6 +31,9 @@ const Login: React.FC = () => {
       if (data.token) {
         localStorage.setItem('token', data.token);
       }
+      if (data.refreshToken) {
+        localStorage.setItem('refreshToken', data.refreshToken);
+      }
       
       // Extract user role from the response - user object is provided by the server
       const userRole = data.user && data.user.role ? data.user.role : 'broker';
@@ -0,0 +1,34 @@
+// k6 load test for the blocking, Mongo-backed API.
+// Compare platform-thread and virtual-thread mode, see loadtest/README.md:
+//   k6 run -e BASE_URL=http://localhost:8082 -e TOKEN=<jwt> --summary-export=platform.json loadtest/catalog.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8082';
+const TOKEN = __ENV.TOKEN || '';
+const authHeaders = TOKEN ? { headers: { Authorization: `Bearer ${TOKEN}` } } : {};
+
+export const options = {
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  scenarios: {
+    catalog: {
+      executor: 'ramping-vus',
+      stages: [
+        { duration: '30s', target: 200 },
+        { duration: '1m', target: 800 },
+        { duration: '1m', target: 800 },
+        { duration: '15s', target: 0 },
+      ],
+    },
+  },
+};
+
+export default function () {
+  const responses = http.batch([
+    ['GET', `${BASE_URL}/api/vehicles?size=20`],
+    ['GET', `${BASE_URL}/api/vehicles/search?make=toyota&size=20`],
+    ['GET', `${BASE_URL}/api/analytics/revenue?timeRange=1year`],
+    ['GET', `${BASE_URL}/api/deals?size=20`, null, authHeaders],
+  ]);
+  responses.forEach((res) => check(res, { 'status 2xx': (r) => r.status >= 200 && r.status < 300 }));
+}
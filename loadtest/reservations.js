@@ -0,0 +1,76 @@
+// k6 contention test for vehicle reservations: many brokers open deals on a few hot vehicles at once.
+// A winning deal is held for HOLD_SECONDS while the other users keep trying. Before it is rejected,
+// so that the vehicle is released and contended for anew, the winner checks that its deal is the
+// only live deal on the vehicle.
+//   k6 run -e BASE_URL=http://localhost:8082 -e TOKEN=<admin jwt> -e BROKER_ID=<broker user id> loadtest/reservations.js
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8082';
+const TOKEN = __ENV.TOKEN || '';
+const BROKER_ID = __ENV.BROKER_ID || '';
+const HOT_VEHICLES = parseInt(__ENV.HOT_VEHICLES || '5', 10);
+const HOLD_SECONDS = parseFloat(__ENV.HOLD_SECONDS || '0.5');
+const params = { headers: { Authorization: `Bearer ${TOKEN}`, 'Content-Type': 'application/json' } };
+
+const dealsWon = new Counter('deals_won');
+const dealsRefused = new Counter('deals_refused');
+
+export const options = {
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  scenarios: {
+    contention: {
+      executor: 'constant-vus',
+      vus: 200,
+      duration: '1m',
+    },
+  },
+  thresholds: {
+    // Every response is a 201 or a 409, and a winning deal is alone on its vehicle while it is held
+    checks: ['rate==1'],
+  },
+};
+
+export function setup() {
+  const vehicleIds = [];
+  for (let i = 0; i < HOT_VEHICLES; i++) {
+    const res = http.post(`${BASE_URL}/api/vehicles`, JSON.stringify({
+      make: 'Loadtest', model: `Hot ${i}`, year: 2024, price: 10000,
+    }), params);
+    check(res, { 'vehicle created': (r) => r.status === 201 });
+    vehicleIds.push(res.json('id'));
+  }
+  return { vehicleIds };
+}
+
+export default function (data) {
+  const vehicleId = data.vehicleIds[Math.floor(Math.random() * data.vehicleIds.length)];
+  const res = http.post(`${BASE_URL}/api/deals`, JSON.stringify({
+    vehicleId, brokerId: BROKER_ID, salePrice: 10000,
+  }), params);
+  check(res, { 'created or refused': (r) => r.status === 201 || r.status === 409 });
+
+  if (res.status === 201) {
+    dealsWon.add(1);
+    const dealId = res.json('id');
+    sleep(HOLD_SECONDS);
+    // Nobody else can win the vehicle while this deal holds it, so a second live deal is a double sale
+    const deals = http.get(`${BASE_URL}/api/deals/vehicle/${vehicleId}`, params).json();
+    const live = deals.filter((deal) => deal.status !== 'rejected').map((deal) => deal.id);
+    check(live, { 'winner is the only live deal': (ids) => ids.length === 1 && ids[0] === dealId });
+    const released = http.put(`${BASE_URL}/api/deals/${dealId}/status?status=rejected`, null, params);
+    check(released, { 'rejected': (r) => r.status === 200 });
+  } else {
+    dealsRefused.add(1);
+  }
+}
+
+export function teardown(data) {
+  data.vehicleIds.forEach((vehicleId) => {
+    const deals = http.get(`${BASE_URL}/api/deals/vehicle/${vehicleId}`, params).json();
+    const live = deals.filter((deal) => deal.status !== 'rejected');
+    check(live, { 'every deal released': (d) => d.length === 0 });
+    http.del(`${BASE_URL}/api/vehicles/${vehicleId}`, null, params);
+  });
+}
@@ -0,0 +1,130 @@
+package com.example.rscarpoint.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.model.Vehicle;
+
+/**
+ * InventoryColumns against the Java stream filter VehicleService.searchVehicles used before filtering
+ * moved into MongoDB (kept here verbatim as the baseline). Both run over the same synthetic catalog.
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryFilterBenchmark {
+
+    private static final String[][] MODELS = {
+        {"Toyota", "Corolla", "Prius", "Aqua", "Vitz", "Hilux"},
+        {"Honda", "Vezel", "Civic", "Fit", "Grace"},
+        {"Suzuki", "Alto", "Wagon R", "Swift"},
+        {"Nissan", "Leaf", "Sunny", "X-Trail"},
+        {"Mitsubishi", "Montero", "Lancer"},
+        {"Bajaj", "Pulsar", "RE"},
+        {"Yamaha", "FZ", "Ray ZR"},
+    };
+    private static final String[] FUEL_TYPES = {"Petrol", "Diesel", "Hybrid", "Electric"};
+    private static final String[] TRANSMISSIONS = {"Automatic", "Manual"};
+    private static final String[] STATUSES = {"Available", "Available", "Available", "Reserved", "Sold"};
+
+    @Param({"1000", "10000", "100000"})
+    private int vehicles;
+
+    // selective: make + status + year/price ranges; broad: a single mileage range matching most rows
+    @Param({"selective", "broad"})
+    private String filter;
+
+    private List<Vehicle> catalog;
+    private InventoryColumns columns;
+    private VehicleSearchDto searchDto;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(vehicles);
+        List<VehicleCardDto> cards = new ArrayList<>(vehicles);
+        for (int i = 0; i < vehicles; i++) {
+            String[] makeModels = MODELS[random.nextInt(MODELS.length)];
+            Vehicle vehicle = new Vehicle();
+            vehicle.setId(Integer.toHexString(i));
+            vehicle.setMake(makeModels[0]);
+            vehicle.setModel(makeModels[1 + random.nextInt(makeModels.length - 1)]);
+            vehicle.setYear(2005 + random.nextInt(20));
+            vehicle.setPrice(300_000 + random.nextInt(150) * 100_000);
+            vehicle.setMileage(random.nextInt(250_000));
+            vehicle.setFuelType(FUEL_TYPES[random.nextInt(FUEL_TYPES.length)]);
+            vehicle.setTransmission(TRANSMISSIONS[random.nextInt(TRANSMISSIONS.length)]);
+            vehicle.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            catalog.add(vehicle);
+            cards.add(VehicleCardDto.from(vehicle));
+        }
+        columns = InventoryColumns.of(cards);
+
+        searchDto = new VehicleSearchDto();
+        if ("selective".equals(filter)) {
+            searchDto.setMake("toy");
+            searchDto.setStatus("available");
+            searchDto.setMinYear(2015);
+            searchDto.setMaxPrice(8_000_000d);
+        } else {
+            searchDto.setMaxMileage(200_000);
+        }
+        if (streamFilter().size() != columnsFilter().size()) {
+            throw new IllegalStateException("InventoryColumns and the stream filter disagree");
+        }
+    }
+
+    @Benchmark
+    public List<Vehicle> streamFilter() {
+        return catalog.stream()
+            .filter(vehicle -> searchDto.getMake() == null ||
+                vehicle.getMake().toLowerCase().contains(searchDto.getMake().toLowerCase()))
+            .filter(vehicle -> searchDto.getModel() == null ||
+                vehicle.getModel().toLowerCase().contains(searchDto.getModel().toLowerCase()))
+            .filter(vehicle -> searchDto.getFuelType() == null ||
+                vehicle.getFuelType().toLowerCase().contains(searchDto.getFuelType().toLowerCase()))
+            .filter(vehicle -> searchDto.getTransmission() == null ||
+                vehicle.getTransmission().toLowerCase().contains(searchDto.getTransmission().toLowerCase()))
+            .filter(vehicle -> searchDto.getMinPrice() == null ||
+                vehicle.getPrice() >= searchDto.getMinPrice())
+            .filter(vehicle -> searchDto.getMaxPrice() == null ||
+                vehicle.getPrice() <= searchDto.getMaxPrice())
+            .filter(vehicle -> searchDto.getMinYear() == null ||
+                vehicle.getYear() >= searchDto.getMinYear())
+            .filter(vehicle -> searchDto.getMaxYear() == null ||
+                vehicle.getYear() <= searchDto.getMaxYear())
+            .filter(vehicle -> searchDto.getMinMileage() == null ||
+                vehicle.getMileage() >= searchDto.getMinMileage())
+            .filter(vehicle -> searchDto.getMaxMileage() == null ||
+                vehicle.getMileage() <= searchDto.getMaxMileage())
+            .filter(vehicle -> searchDto.getStatus() == null ||
+                vehicle.getStatus().equalsIgnoreCase(searchDto.getStatus()))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<VehicleCardDto> columnsFilter() {
+        return columns.filter(searchDto);
+    }
+}
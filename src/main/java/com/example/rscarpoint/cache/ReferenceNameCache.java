@@ -0,0 +1,95 @@
+package com.example.rscarpoint.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.event.VehicleChangedEvent;
+
+// Short-lived display names of the vehicles and brokers that deals reference, so that a page of deals
+// costs one batched $in lookup per collection for whatever is not cached yet. Vehicle names are dropped
+// on VehicleChangedEvent; broker names are simply left to expire after the TTL.
+@Component
+public class ReferenceNameCache {
+
+    // Make and model of a vehicle; both null when the vehicle no longer exists
+    public record VehicleName(String make, String model) {
+        public static final VehicleName MISSING = new VehicleName(null, null);
+    }
+
+    private static final String MISSING_BROKER = "";
+
+    private final WeightedCache<String, VehicleName> vehicleNames;
+    private final WeightedCache<String, String> brokerNames;
+
+    // Every entry weighs 1, so the weight bound is the entry bound
+    public ReferenceNameCache(@Value("${rscarpoint.cache.names.max-entries:20000}") int maxEntries,
+                              @Value("${rscarpoint.cache.names.ttl-seconds:60}") long ttlSeconds) {
+        this.vehicleNames = new WeightedCache<>(maxEntries, maxEntries, ttlSeconds * 1000);
+        this.brokerNames = new WeightedCache<>(maxEntries, maxEntries, ttlSeconds * 1000);
+    }
+
+    // loader receives only the uncached ids and returns the names it found; absent ids map to MISSING
+    public Map<String, VehicleName> getVehicleNames(Collection<String> ids,
+                                                    Function<Set<String>, Map<String, VehicleName>> loader) {
+        return resolve(vehicleNames, ids, loader, VehicleName.MISSING);
+    }
+
+    // Brokers that no longer exist map to null
+    public Map<String, String> getBrokerNames(Collection<String> ids, Function<Set<String>, Map<String, String>> loader) {
+        Map<String, String> names = resolve(brokerNames, ids, loader, MISSING_BROKER);
+        names.replaceAll((id, name) -> MISSING_BROKER.equals(name) ? null : name);
+        return names;
+    }
+
+    @EventListener
+    public void onVehicleChanged(VehicleChangedEvent event) {
+        if (event.isStatusOnly()) {
+            return;
+        }
+        if (event.isBulk()) {
+            vehicleNames.clear();
+        } else {
+            vehicleNames.invalidate(event.getVehicleId());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of("vehicles", vehicleNames.stats(), "brokers", brokerNames.stats());
+    }
+
+    // Missing ids are cached too, so deals pointing at deleted documents do not repeat the lookup
+    private static <V> Map<String, V> resolve(WeightedCache<String, V> cache, Collection<String> ids,
+                                              Function<Set<String>, Map<String, V>> loader, V missing) {
+        Map<String, V> resolved = new HashMap<>();
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id == null || resolved.containsKey(id) || uncached.contains(id)) {
+                continue;
+            }
+            V cached = cache.get(id);
+            if (cached != null) {
+                resolved.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            Map<String, V> loaded = loader.apply(uncached);
+            for (String id : uncached) {
+                V value = Objects.requireNonNullElse(loaded.get(id), missing);
+                cache.put(id, value, 1);
+                resolved.put(id, value);
+            }
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.rscarpoint.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.event.VehicleChangedEvent;
+import com.example.rscarpoint.model.Vehicle;
+
+// Read-through cache for vehicle details and list/search results, per node. Every vehicle write path
+// publishes a VehicleChangedEvent: it drops that vehicle's entry and every cached list, since any list
+// may contain it. Search keys are only admitted once they were asked for admitAfter times.
+@Component
+public class VehicleCache {
+    private final WeightedCache<Object, Object> cache;
+    private final WeightedCache<Object, AtomicInteger> searchFrequency;
+    private final int admitAfter;
+    private final AtomicLong generation = new AtomicLong();
+
+    public VehicleCache(@Value("${rscarpoint.cache.vehicles.max-entries:5000}") int maxEntries,
+                        @Value("${rscarpoint.cache.vehicles.max-weight-bytes:33554432}") long maxWeightBytes,
+                        @Value("${rscarpoint.cache.vehicles.ttl-seconds:300}") long ttlSeconds,
+                        @Value("${rscarpoint.cache.vehicles.search-admit-after:2}") int admitAfter) {
+        this.cache = new WeightedCache<>(maxEntries, maxWeightBytes, ttlSeconds * 1000);
+        this.searchFrequency = new WeightedCache<>(maxEntries * 4, maxEntries * 4L, ttlSeconds * 1000);
+        this.admitAfter = admitAfter;
+    }
+
+    public Optional<Vehicle> getVehicle(String id, Supplier<Optional<Vehicle>> loader) {
+        VehicleKey key = new VehicleKey(id);
+        Vehicle cached = (Vehicle) cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadedAt = generation.get();
+        Optional<Vehicle> vehicle = loader.get();
+        vehicle.ifPresent(value -> putIfCurrent(key, value, weigh(value), loadedAt));
+        return vehicle;
+    }
+
+    // The unfiltered listing is always cached; filtered searches only once they are frequent
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getList(String view, VehicleSearchDto searchDto, Supplier<List<T>> loader,
+                               ToLongFunction<T> weigher) {
+        ListKey key = new ListKey(view, searchDto);
+        List<T> cached = (List<T>) cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        List<T> result = loader.get();
+        if (isUnfiltered(searchDto) || isFrequent(key)) {
+            long weight = 64;
+            for (T item : result) {
+                weight += weigher.applyAsLong(item);
+            }
+            putIfCurrent(key, List.copyOf(result), weight, loadedAt);
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onVehicleChanged(VehicleChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.isBulk()) {
+            cache.clear();
+            return;
+        }
+        cache.invalidate(new VehicleKey(event.getVehicleId()));
+        cache.invalidateIf(key -> key instanceof ListKey);
+    }
+
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+
+    // Rough in-memory size in bytes: a fixed object overhead plus two bytes per character
+    public static long weigh(Vehicle vehicle) {
+        return 200 + 2L * (length(vehicle.getId()) + length(vehicle.getMake()) + length(vehicle.getModel())
+                + length(vehicle.getFuelType()) + length(vehicle.getTransmission())
+                + length(vehicle.getEngineCapacity()) + length(vehicle.getManufactureDate())
+                + length(vehicle.getDescription()) + length(vehicle.getStatus()) + length(vehicle.getImageId()));
+    }
+
+    public static long weigh(VehicleCardDto card) {
+        return 160 + 2L * (length(card.getId()) + length(card.getMake()) + length(card.getModel())
+                + length(card.getFuelType()) + length(card.getTransmission()) + length(card.getStatus())
+                + length(card.getThumbnailUrl()));
+    }
+
+    // An entry loaded before a concurrent write must not be cached after that write's invalidation
+    private void putIfCurrent(Object key, Object value, long weight, long loadedAt) {
+        if (generation.get() != loadedAt) {
+            return;
+        }
+        cache.put(key, value, weight);
+        if (generation.get() != loadedAt) {
+            cache.invalidate(key);
+        }
+    }
+
+    private boolean isFrequent(ListKey key) {
+        AtomicInteger count = searchFrequency.get(key);
+        if (count == null) {
+            count = new AtomicInteger();
+            searchFrequency.put(key, count, 1);
+        }
+        return count.incrementAndGet() >= admitAfter;
+    }
+
+    private static boolean isUnfiltered(VehicleSearchDto searchDto) {
+        return new VehicleSearchDto().equals(searchDto);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record VehicleKey(String id) {
+    }
+
+    private record ListKey(String view, VehicleSearchDto searchDto) {
+    }
+}
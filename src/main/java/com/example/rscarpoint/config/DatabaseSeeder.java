@@ -1,9 +1,11 @@
 package com.example.rscarpoint.config;
 
+import com.example.rscarpoint.event.VehicleChangedEvent;
 import com.example.rscarpoint.model.Vehicle;
 import com.example.rscarpoint.repository.VehicleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
@@ -12,6 +14,9 @@ public class DatabaseSeeder implements CommandLineRunner {
     @Autowired
     private VehicleRepository vehicleRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public void run(String... args) throws Exception {
         // Clear existing data
@@ -59,6 +64,7 @@ public class DatabaseSeeder implements CommandLineRunner {
         v3.setDescription("Affordable hatchback");
         v3.setStatus("Available");
         vehicleRepository.save(v3);
+        eventPublisher.publishEvent(VehicleChangedEvent.allVehicles());
 
         System.out.println("Database seeded with sample vehicles.");
     }
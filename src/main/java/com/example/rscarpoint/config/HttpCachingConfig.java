@@ -0,0 +1,58 @@
+package com.example.rscarpoint.config;
+
+import java.io.IOException;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Conditional GETs for the dashboard reads. Responses without an ETag of their own get a weak one
+// hashed from the body, and a matching If-None-Match is answered with an empty 304.
+// The 304 saves only the transfer: list and analytics responses are still fully computed and serialized
+// before the hash is compared, so revalidation costs the same queries as a plain GET. Single documents
+// carry versionTag() instead of a body hash, which skips the hashing but not the read.
+// Compression of large JSON responses is configured with server.compression.* in application.properties.
+@Configuration
+public class HttpCachingConfig {
+
+    // ETag of a single versioned document; computed without serializing the body
+    public static String versionTag(String id, Long version) {
+        return "W/\"" + id + "-" + (version == null ? 0 : version) + "\"";
+    }
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> conditionalGetFilter() {
+        ConditionalGetFilter filter = new ConditionalGetFilter();
+        // Weak: the same tag is served for the gzip and the identity encoding
+        filter.setWriteWeakETag(true);
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/vehicles", "/api/vehicles/*", "/api/deals", "/api/deals/*",
+                "/api/analytics/*");
+        return registration;
+    }
+
+    private static class ConditionalGetFilter extends ShallowEtagHeaderFilter {
+
+        // Only GETs are buffered; image bytes are streamed and carry their own ETag
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            return !"GET".equals(request.getMethod()) || request.getRequestURI().endsWith("/image");
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            // Spring Security would otherwise send no-store, and browsers never revalidate those
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+            super.doFilterInternal(request, response, filterChain);
+        }
+    }
+}
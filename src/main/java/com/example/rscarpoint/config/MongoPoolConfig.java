@@ -0,0 +1,27 @@
+package com.example.rscarpoint.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Connection pool limits for the MongoDB driver; 0 keeps the driver defaults (100 connections, 2 min wait)
+@Configuration
+public class MongoPoolConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(
+            @Value("${rscarpoint.mongo.max-pool-size:0}") int maxPoolSize,
+            @Value("${rscarpoint.mongo.max-wait-ms:0}") long maxWaitMillis) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> {
+            if (maxPoolSize > 0) {
+                pool.maxSize(maxPoolSize);
+            }
+            if (maxWaitMillis > 0) {
+                pool.maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.rscarpoint.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.rscarpoint.cache.ReferenceNameCache;
+import com.example.rscarpoint.cache.VehicleCache;
+import com.example.rscarpoint.search.InventorySnapshot;
+import com.example.rscarpoint.search.VehicleSearchIndex;
+import com.example.rscarpoint.search.VehicleSuggestIndex;
+import com.example.rscarpoint.service.DealRollupService;
+import com.example.rscarpoint.service.IndexManagementService;
+
+@RestController
+@CrossOrigin(origins = {"http://localhost:3003", "http://localhost:3004"}, allowCredentials = "true")
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+    @Autowired
+    private IndexManagementService indexManagementService;
+
+    @Autowired
+    private DealRollupService dealRollupService;
+
+    @Autowired
+    private VehicleCache vehicleCache;
+
+    @Autowired
+    private ReferenceNameCache referenceNameCache;
+
+    @Autowired
+    private VehicleSearchIndex vehicleSearchIndex;
+
+    @Autowired
+    private VehicleSuggestIndex vehicleSuggestIndex;
+
+    @Autowired
+    private InventorySnapshot inventorySnapshot;
+
+    // Declared vs existing indexes per collection, with missing/unused/undeclared lists
+    @GetMapping("/indexes")
+    public ResponseEntity<List<Map<String, Object>>> getIndexReport() {
+        try {
+            return ResponseEntity.ok(indexManagementService.getIndexReport());
+        } catch (Exception e) {
+            System.err.println("Error building index report: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Re-create any missing declared indexes without restarting the application
+    @PostMapping("/indexes/ensure")
+    public ResponseEntity<Map<String, Object>> ensureIndexes() {
+        try {
+            Map<String, List<String>> failures = indexManagementService.ensureIndexes();
+            return ResponseEntity.ok(Map.of(
+                "success", failures.isEmpty(),
+                "failures", failures
+            ));
+        } catch (Exception e) {
+            System.err.println("Error ensuring indexes: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Recompute the analytics rollups from the deals collection to repair drift
+    @PostMapping("/analytics/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDealRollups() {
+        try {
+            int buckets = dealRollupService.rebuild();
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "buckets", buckets
+            ));
+        } catch (Exception e) {
+            System.err.println("Error rebuilding deal rollups: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Rebuild this node's full-text, autocomplete and inventory snapshot indexes from MongoDB
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSearchIndex() {
+        try {
+            int vehicles = vehicleSearchIndex.rebuild();
+            int suggested = vehicleSuggestIndex.rebuild();
+            int inventory = inventorySnapshot.rebuild();
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "vehicles", vehicles,
+                "suggestVehicles", suggested,
+                "inventoryVehicles", inventory
+            ));
+        } catch (Exception e) {
+            System.err.println("Error rebuilding search index: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Size, weight and hit/miss counters of this node's vehicle cache
+    @GetMapping("/cache/vehicles")
+    public ResponseEntity<Map<String, Object>> getVehicleCacheStats() {
+        return ResponseEntity.ok(vehicleCache.stats());
+    }
+
+    // Hit/miss counters of the vehicle and broker name lookups behind the deal summaries
+    @GetMapping("/cache/names")
+    public ResponseEntity<Map<String, Object>> getReferenceNameCacheStats() {
+        return ResponseEntity.ok(referenceNameCache.stats());
+    }
+}
@@ -1,155 +1,223 @@
 package com.example.rscarpoint.controller;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.example.rscarpoint.model.Deal;
-import com.example.rscarpoint.model.Vehicle;
-import com.example.rscarpoint.repository.DealRepository;
+import com.example.rscarpoint.dto.BrokerPerformanceDto;
+import com.example.rscarpoint.dto.DealTotalsDto;
+import com.example.rscarpoint.dto.SalesBucketDto;
+import com.example.rscarpoint.dto.VehicleTypeCountDto;
 import com.example.rscarpoint.repository.VehicleRepository;
+import com.example.rscarpoint.service.AnalyticsService;
+import com.example.rscarpoint.service.DealRollupService;
+import com.example.rscarpoint.service.DealService;
+import com.example.rscarpoint.service.TimeRange;
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:3003", "http://localhost:3004"}, allowCredentials = "true")
 @RequestMapping("/api/analytics")
 public class AnalyticsController {
     
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yyyy", Locale.ENGLISH);
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    
     @Autowired
-    private DealRepository dealRepository;
+    private DealRollupService dealRollupService;
+    
+    @Autowired
+    private DealService dealService;
     
     @Autowired
     private VehicleRepository vehicleRepository;
 
     @GetMapping("/sales")
-    public Map<String, Object> getSalesData(@RequestParam(defaultValue = "1year") String timeRange) {
-        List<Deal> deals = dealRepository.findAll();
-        Map<String, Object> response = new HashMap<>();
-        
-        // Generate mock monthly sales data
+    public ResponseEntity<?> getSalesData(@RequestParam(defaultValue = "1year") String timeRange,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                          @RequestParam(defaultValue = AnalyticsService.INTERVAL_AUTO) String interval) {
+        try {
+            LocalDate today = LocalDate.now();
+            TimeRange range = TimeRange.resolve(timeRange, from, to, today);
+            DealTotalsDto totals = analyticsService.getDealTotals(range);
+            TimeRange bounded = analyticsService.boundRange(range, today);
+
+            Map<String, Object> response = new HashMap<>();
+            if (bounded != null) {
+                String resolvedInterval = analyticsService.resolveInterval(interval, bounded);
+                response.put("series", analyticsService.getSalesSeries(bounded, resolvedInterval, today));
+                response.put("interval", resolvedInterval);
+                response.put("from", bounded.getStart().toString());
+                response.put("to", bounded.getEnd().toString());
+                response.put("monthlyData", toMonthlyData(
+                        analyticsService.getSalesSeries(bounded, AnalyticsService.INTERVAL_MONTH, today)));
+            } else {
+                response.put("series", List.of());
+                response.put("interval", interval);
+                response.put("monthlyData", List.of());
+            }
+            response.put("totalSales", totals.getDealCount());
+            response.put("totalRevenue", totals.getTotalRevenue());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private List<Map<String, Object>> toMonthlyData(List<SalesBucketDto> buckets) {
         List<Map<String, Object>> monthlyData = new ArrayList<>();
-        String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-        
-        for (int i = 0; i < 12; i++) {
+        for (SalesBucketDto bucket : buckets) {
             Map<String, Object> monthData = new HashMap<>();
-            monthData.put("month", months[i]);
-            monthData.put("sales", (int)(Math.random() * 50) + 10); // Random sales between 10-60
-            monthData.put("revenue", (int)(Math.random() * 5000000) + 1000000); // Random revenue
+            monthData.put("month", monthLabel(bucket));
+            monthData.put("period", bucket.getPeriod());
+            monthData.put("sales", bucket.getSales());
+            monthData.put("revenue", bucket.getRevenue());
             monthlyData.add(monthData);
         }
-        
-        response.put("monthlyData", monthlyData);
-        response.put("totalSales", deals.size());
-        response.put("totalRevenue", deals.stream().mapToDouble(Deal::getSalePrice).sum());
-        
-        return response;
+        return monthlyData;
+    }
+
+    private String monthLabel(SalesBucketDto bucket) {
+        return YearMonth.parse(bucket.getPeriod()).format(MONTH_LABEL);
     }
 
+    // Deals per make within the time range, read from the deal rollups
     @GetMapping("/vehicle-types")
-    public Map<String, Object> getVehicleTypeSales(@RequestParam(defaultValue = "1year") String timeRange) {
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        Map<String, Integer> typeCounts = new HashMap<>();
-        
-        // Count vehicles by type (using make as type)
-        for (Vehicle vehicle : vehicles) {
-            String make = vehicle.getMake();
-            typeCounts.put(make, typeCounts.getOrDefault(make, 0) + 1);
+    public ResponseEntity<?> getVehicleTypeSales(@RequestParam(defaultValue = "1year") String timeRange,
+                                                 @RequestParam(required = false) String status) {
+        try {
+            List<VehicleTypeCountDto> typeCounts =
+                    dealRollupService.getDealCountsByMake(TimeRange.parse(timeRange, LocalDate.now()), status);
+            long totalDeals = typeCounts.stream().mapToLong(VehicleTypeCountDto::getCount).sum();
+            
+            List<Map<String, Object>> typeData = new ArrayList<>();
+            for (VehicleTypeCountDto typeCount : typeCounts) {
+                Map<String, Object> type = new HashMap<>();
+                type.put("type", typeCount.getType());
+                type.put("count", typeCount.getCount());
+                type.put("percentage", totalDeals == 0 ? 0 : (typeCount.getCount() * 100.0 / totalDeals));
+                typeData.add(type);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("data", typeData);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        
-        List<Map<String, Object>> typeData = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : typeCounts.entrySet()) {
-            Map<String, Object> type = new HashMap<>();
-            type.put("type", entry.getKey());
-            type.put("count", entry.getValue());
-            type.put("percentage", vehicles.isEmpty() ? 0 : (entry.getValue() * 100.0 / vehicles.size()));
-            typeData.add(type);
-        }
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("data", typeData);
-        return response;
     }
 
     @GetMapping("/dealer-performance")
-    public Map<String, Object> getDealerPerformance(@RequestParam(defaultValue = "1year") String timeRange) {
-        List<Deal> deals = dealRepository.findAll();
-        Map<String, Double> brokerPerformance = new HashMap<>();
-        
-        // Calculate performance by broker
-        for (Deal deal : deals) {
-            String brokerId = deal.getBrokerId();
-            brokerPerformance.put(brokerId, brokerPerformance.getOrDefault(brokerId, 0.0) + deal.getSalePrice());
+    public ResponseEntity<?> getDealerPerformance(@RequestParam(defaultValue = "1year") String timeRange,
+                                                  @RequestParam(required = false) String status) {
+        TimeRange range;
+        try {
+            range = TimeRange.parse(timeRange, LocalDate.now());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
+        List<BrokerPerformanceDto> brokerPerformance = dealRollupService.getBrokerPerformance(range, status);
         
+        // One batched lookup for all brokers; the id prefix only stands in for brokers that no longer exist
+        Map<String, String> brokerNames = dealService.getBrokerNames(
+                brokerPerformance.stream().map(BrokerPerformanceDto::getBrokerId).toList());
         List<Map<String, Object>> performanceData = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : brokerPerformance.entrySet()) {
+        for (BrokerPerformanceDto performance : brokerPerformance) {
+            String brokerId = performance.getBrokerId() != null ? performance.getBrokerId() : "";
+            String brokerName = brokerNames.get(brokerId);
             Map<String, Object> broker = new HashMap<>();
-            broker.put("brokerId", entry.getKey());
-            broker.put("brokerName", "Broker " + entry.getKey().substring(0, Math.min(8, entry.getKey().length())));
-            broker.put("totalSales", entry.getValue());
-            broker.put("dealCount", deals.stream().mapToInt(d -> d.getBrokerId().equals(entry.getKey()) ? 1 : 0).sum());
+            broker.put("brokerId", brokerId);
+            broker.put("brokerName", brokerName != null
+                    ? brokerName : "Broker " + brokerId.substring(0, Math.min(8, brokerId.length())));
+            broker.put("totalSales", performance.getTotalSales());
+            broker.put("dealCount", performance.getDealCount());
             performanceData.add(broker);
         }
         
         Map<String, Object> response = new HashMap<>();
         response.put("data", performanceData);
-        return response;
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/revenue")
-    public Map<String, Object> getRevenueMetrics(@RequestParam(defaultValue = "1year") String timeRange) {
-        List<Deal> deals = dealRepository.findAll();
-        
-        double totalRevenue = deals.stream().mapToDouble(Deal::getSalePrice).sum();
-        double totalCommission = deals.stream().mapToDouble(Deal::getCommission).sum();
-        double averageDealValue = deals.isEmpty() ? 0 : totalRevenue / deals.size();
+    public ResponseEntity<?> getRevenueMetrics(@RequestParam(defaultValue = "1year") String timeRange,
+                                               @RequestParam(required = false) String status) {
+        TimeRange range;
+        try {
+            range = TimeRange.parse(timeRange, LocalDate.now());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        DealTotalsDto totals = dealRollupService.getDealTotals(range, status);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("totalRevenue", totalRevenue);
-        response.put("totalCommission", totalCommission);
-        response.put("averageDealValue", averageDealValue);
-        response.put("dealCount", deals.size());
-        response.put("growthRate", 12.5); // Mock growth rate
+        response.put("totalRevenue", totals.getTotalRevenue());
+        response.put("totalCommission", totals.getTotalCommission());
+        response.put("averageDealValue", totals.getAverageDealValue());
+        response.put("dealCount", totals.getDealCount());
+        response.put("growthRate", dealRollupService.getRevenueGrowthRate(range, status, totals.getTotalRevenue()));
         
-        return response;
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/report")
-    public Map<String, Object> getSalesReport(@RequestParam(defaultValue = "1year") String timeRange) {
-        List<Deal> deals = dealRepository.findAll();
-        List<Vehicle> vehicles = vehicleRepository.findAll();
+    public ResponseEntity<?> getSalesReport(@RequestParam(defaultValue = "1year") String timeRange) {
+        LocalDate today = LocalDate.now();
+        TimeRange range;
+        try {
+            range = TimeRange.parse(timeRange, today);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        DealTotalsDto totals = analyticsService.getDealTotals(range);
         
         Map<String, Object> report = new HashMap<>();
         report.put("period", timeRange);
         report.put("generatedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        report.put("totalDeals", deals.size());
-        report.put("totalVehicles", vehicles.size());
-        report.put("totalRevenue", deals.stream().mapToDouble(Deal::getSalePrice).sum());
-        report.put("averageDealValue", deals.isEmpty() ? 0 : deals.stream().mapToDouble(Deal::getSalePrice).average().orElse(0));
+        report.put("totalDeals", totals.getDealCount());
+        report.put("totalVehicles", vehicleRepository.count());
+        report.put("totalRevenue", totals.getTotalRevenue());
+        report.put("averageDealValue", totals.getAverageDealValue());
         
-        // Top performing months (mock data)
+        // Top performing months by revenue within the period
         List<Map<String, Object>> topMonths = new ArrayList<>();
-        String[] months = {"January", "March", "June"};
-        double[] revenues = {2500000, 2200000, 2100000};
-        
-        for (int i = 0; i < 3; i++) {
-            Map<String, Object> month = new HashMap<>();
-            month.put("month", months[i]);
-            month.put("revenue", revenues[i]);
-            topMonths.add(month);
+        TimeRange bounded = analyticsService.boundRange(range, today);
+        if (bounded != null) {
+            analyticsService.getSalesSeries(bounded, AnalyticsService.INTERVAL_MONTH, today).stream()
+                    .filter(bucket -> bucket.getSales() > 0)
+                    .sorted(Comparator.comparingDouble(SalesBucketDto::getRevenue).reversed())
+                    .limit(3)
+                    .forEach(bucket -> {
+                        Map<String, Object> month = new HashMap<>();
+                        month.put("month", monthLabel(bucket));
+                        month.put("period", bucket.getPeriod());
+                        month.put("revenue", bucket.getRevenue());
+                        month.put("sales", bucket.getSales());
+                        topMonths.add(month);
+                    });
         }
         
         report.put("topPerformingMonths", topMonths);
         
-        return report;
+        return ResponseEntity.ok(report);
     }
 }
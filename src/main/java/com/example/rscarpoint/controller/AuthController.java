@@ -3,23 +3,35 @@ package com.example.rscarpoint.controller;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.rscarpoint.dto.UserResponseDto;
+import com.example.rscarpoint.exception.TooManyRequestsException;
 import com.example.rscarpoint.model.User;
 import com.example.rscarpoint.repository.UserRepository;
 import com.example.rscarpoint.security.JwtUtil;
+import com.example.rscarpoint.security.LoginThrottle;
+import com.example.rscarpoint.security.PasswordHashingService;
+import com.example.rscarpoint.security.TokenRevocationService;
+import com.example.rscarpoint.service.LastLoginRecorder;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:3001", "http://localhost:3003", "http://localhost:3004"}, allowCredentials = "true")
@@ -28,72 +40,125 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private AuthenticationManager authenticationManager;
-    @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private LoginThrottle loginThrottle;
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @PostMapping("/register-broker")
-    public ResponseEntity<User> registerBroker(@RequestBody User user) {
-        if (userRepository.findAll().stream().anyMatch(u -> u.getEmail().equalsIgnoreCase(user.getEmail()))) {
+    public ResponseEntity<UserResponseDto> registerBroker(@RequestBody User user) {
+        if (user.getEmail() == null || userRepository.existsByEmail(user.getEmail())) {
             return ResponseEntity.badRequest().build(); // Email already exists
         }
         user.setRole("broker");
         user.setStatus("active");
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return ResponseEntity.ok(userRepository.save(user));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.badRequest().build(); // Registered concurrently
+        }
+        tokenRevocationService.registered(savedUser);
+        return ResponseEntity.ok(UserResponseDto.from(savedUser));
     }
 
+    // Throttled before any hashing; the password check itself runs on the bounded PasswordHashingService pool
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> loginRequest,
+                                                      HttpServletRequest request) {
         String email = loginRequest.get("email");
         String password = loginRequest.get("password");
         
         System.out.println("Login attempt for email: " + email);
         
-        // Try to find the user manually first to check if it exists
-        Optional<User> userOptional = userRepository.findByEmail(email);
-        User existingUser = null;
+        try {
+            loginThrottle.checkAllowed(email, request.getRemoteAddr());
+        } catch (TooManyRequestsException e) {
+            return CompletableFuture.completedFuture(tooManyRequests(e));
+        }
         
-        if (userOptional.isPresent()) {
-            existingUser = userOptional.get();
-            System.out.println("User found with findByEmail: " + existingUser.getEmail());
-        } else {
-            System.out.println("User not found with findByEmail, trying manual search...");
-            existingUser = userRepository.findAll().stream()
-                    .filter(u -> email.equalsIgnoreCase(u.getEmail()))
-                    .findFirst()
-                    .orElse(null);
-            
-            if (existingUser == null) {
-                System.out.println("User doesn't exist in the database: " + email);
-                return ResponseEntity.status(401).body("Invalid credentials - User not found");
-            } else {
-                System.out.println("User found manually: " + existingUser.getEmail());
-            }
+        Optional<User> userOptional = userRepository.findByEmail(email);
+        if (userOptional.isEmpty()) {
+            System.out.println("User doesn't exist in the database: " + email);
+            loginThrottle.recordFailure(email);
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(401).body("Invalid credentials - User not found"));
         }
+        User user = userOptional.get();
         
+        // Verified against the user loaded above: no second lookup through the AuthenticationManager
+        return passwordHashingService.verify(user, password)
+                .orTimeout(passwordHashingService.getTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .handle((verified, error) -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof TooManyRequestsException tooMany) {
+                        return tooManyRequests(tooMany);
+                    }
+                    if (cause instanceof TimeoutException) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Login timed out, retry shortly");
+                    }
+                    if (cause != null || !Boolean.TRUE.equals(verified)) {
+                        if (cause != null) {
+                            System.out.println("Login error for " + email + ": " + cause.getMessage());
+                        }
+                        loginThrottle.recordFailure(email);
+                        return ResponseEntity.status(401).body("Invalid credentials - Authentication failed");
+                    }
+                    
+                    loginThrottle.recordSuccess(email);
+                    lastLoginRecorder.record(user.getId());
+                    String token = jwtUtil.generateAccessToken(user);
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("token", token);
+                    response.put("refreshToken", jwtUtil.generateRefreshToken(user));
+                    response.put("user", UserResponseDto.from(user));
+                    System.out.println("Login successful for: " + email);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    private ResponseEntity<?> tooManyRequests(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    // Exchanges a refresh token for a new access token and a rotated refresh token
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> refreshRequest) {
+        String refreshToken = refreshRequest.get("refreshToken");
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return ResponseEntity.badRequest().body("refreshToken is required");
+        }
+        Claims claims;
         try {
-            // Now proceed with authentication
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(email, password)
-            );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            
-            // User has been authenticated successfully
-            User user = existingUser;
-            
-            String token = jwtUtil.generateToken(email, user.getRole());
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("user", user);
-            System.out.println("Login successful for: " + email);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            System.out.println("Login error for " + email + ": " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(401).body("Invalid credentials - Authentication failed");
+            claims = jwtUtil.parseClaims(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            return ResponseEntity.status(401).body("Invalid refresh token");
+        }
+        if (!jwtUtil.isRefreshToken(claims)) {
+            return ResponseEntity.status(401).body("Invalid refresh token");
         }
+
+        // The one database read: role, status and revocation are re-checked before a new access token
+        Optional<User> userOptional = userRepository.findByEmail(claims.getSubject());
+        if (userOptional.isEmpty()
+                || "inactive".equalsIgnoreCase(userOptional.get().getStatus())
+                || userOptional.get().getTokenVersion() != jwtUtil.getTokenVersion(claims)) {
+            return ResponseEntity.status(401).body("Refresh token has been revoked");
+        }
+
+        User user = userOptional.get();
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", jwtUtil.generateAccessToken(user));
+        response.put("refreshToken", jwtUtil.generateRefreshToken(user));
+        return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.example.rscarpoint.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.model.Vehicle;
+import com.example.rscarpoint.repository.ReactiveVehicleRepository;
+import com.example.rscarpoint.service.ImageStore;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Public read-only catalog on the reactive MongoDB driver. Request threads are released while
+// MongoDB works; with Accept: application/x-ndjson lists stream one item per line with backpressure,
+// otherwise they are written as a JSON array.
+@RestController
+@CrossOrigin(origins = {"http://localhost:3003", "http://localhost:3004"}, allowCredentials = "true")
+@RequestMapping("/api/catalog/vehicles")
+public class CatalogController {
+    private static final String FULL_VIEW = "full";
+
+    @Autowired
+    private ReactiveVehicleRepository reactiveVehicleRepository;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    // Same bounds as the keyset-paginated endpoints: limit defaults to default-size and is clamped to max-size
+    @Value("${rscarpoint.pagination.default-size:20}")
+    private int defaultLimit;
+
+    @Value("${rscarpoint.pagination.max-size:100}")
+    private int maxLimit;
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<?> getVehicles(@RequestParam(defaultValue = "card") String view,
+                               @RequestParam(required = false) Integer limit) {
+        return search(new VehicleSearchDto(), view, limit);
+    }
+
+    // Same filters as GET /api/vehicles/search, bound from the query string
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<?> searchVehicles(VehicleSearchDto searchDto,
+                                  @RequestParam(defaultValue = "card") String view,
+                                  @RequestParam(required = false) Integer limit) {
+        return search(searchDto, view, limit);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Vehicle>> getVehicleById(@PathVariable String id) {
+        return reactiveVehicleRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // The vehicle lookup is non-blocking; the ImageStore lookup is blocking and runs on boundedElastic
+    @GetMapping("/{id}/image")
+    public Mono<ResponseEntity<Resource>> getVehicleImage(@PathVariable String id) {
+        return reactiveVehicleRepository.findImageRefById(id)
+                .flatMap(vehicle -> Mono.justOrEmpty(vehicle.getImageId()))
+                .flatMap(imageId -> Mono.fromCallable(() -> imageStore.find(imageId))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(Mono::justOrEmpty))
+                .map(storedImage -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(storedImage.getContentType()))
+                        .eTag("\"" + storedImage.getId() + "\"")
+                        .lastModified(storedImage.lastModified())
+                        .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic())
+                        .<Resource>body(storedImage))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private Flux<?> search(VehicleSearchDto searchDto, String view, Integer limit) {
+        if (limit != null && limit < 0) {
+            return Flux.error(new IllegalArgumentException("limit must not be negative"));
+        }
+        int effectiveLimit = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        if (FULL_VIEW.equalsIgnoreCase(view)) {
+            return reactiveVehicleRepository.search(searchDto, effectiveLimit);
+        }
+        return reactiveVehicleRepository.searchCards(searchDto, effectiveLimit);
+    }
+}
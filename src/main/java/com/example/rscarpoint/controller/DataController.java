@@ -1,10 +1,23 @@
 package com.example.rscarpoint.controller;
 
+import com.example.rscarpoint.dto.BulkResultDto;
+import com.example.rscarpoint.event.DealChangedEvent;
+import com.example.rscarpoint.event.VehicleChangedEvent;
 import com.example.rscarpoint.model.Vehicle;
 import com.example.rscarpoint.model.Deal;
+import com.example.rscarpoint.model.User;
 import com.example.rscarpoint.repository.VehicleRepository;
 import com.example.rscarpoint.repository.DealRepository;
+import com.example.rscarpoint.service.DealService;
+import com.example.rscarpoint.service.ImageMigrationService;
+import com.example.rscarpoint.service.ImageStore;
+import com.example.rscarpoint.service.VehicleReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -25,12 +38,28 @@ public class DataController {
     @Autowired
     private DealRepository dealRepository;
 
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageMigrationService imageMigrationService;
+
     @PostMapping("/seed-vehicles")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> seedVehicles() {
         try {
             List<Vehicle> vehicles = createSampleVehicles();
             List<Vehicle> savedVehicles = vehicleRepository.saveAll(vehicles);
+            eventPublisher.publishEvent(VehicleChangedEvent.allVehicles());
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -45,6 +74,7 @@ public class DataController {
         }
     }
 
+    // Goes through the bulk import, so the sample deals reserve their vehicles like any other deal
     @PostMapping("/seed-deals")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> seedDeals() {
@@ -56,14 +86,22 @@ public class DataController {
                     "message", "Please seed vehicles first"
                 ));
             }
+            User broker = mongoTemplate.findOne(new Query(Criteria.where("role").is("broker")), User.class);
+            if (broker == null) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Please create a broker first"
+                ));
+            }
 
-            List<Deal> deals = createSampleDeals(vehicles);
-            List<Deal> savedDeals = dealRepository.saveAll(deals);
+            List<Deal> deals = createSampleDeals(vehicles, broker.getId());
+            BulkResultDto result = dealService.createDeals(deals.iterator());
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Sample deals created successfully",
-                "count", savedDeals.size()
+                "count", result.getSucceeded(),
+                "failed", result.getFailed()
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -77,7 +115,12 @@ public class DataController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, String>> clearVehicles() {
         try {
+            Query withImage = new Query(Criteria.where("imageId").ne(null));
+            withImage.fields().include("imageId");
+            List<Vehicle> vehiclesWithImages = mongoTemplate.find(withImage, Vehicle.class);
             vehicleRepository.deleteAll();
+            vehiclesWithImages.forEach(vehicle -> imageStore.delete(vehicle.getImageId()));
+            eventPublisher.publishEvent(VehicleChangedEvent.allVehicles());
             return ResponseEntity.ok(Map.of(
                 "success", "true",
                 "message", "All vehicles deleted successfully"
@@ -90,11 +133,35 @@ public class DataController {
         }
     }
 
+    @PostMapping("/migrate-images")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> migrateImages() {
+        try {
+            int migrated = imageMigrationService.migrateBase64Images();
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Vehicle images migrated to the image store",
+                "count", migrated
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "Failed to migrate images: " + e.getMessage()
+            ));
+        }
+    }
+
     @DeleteMapping("/clear-deals")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, String>> clearDeals() {
         try {
             dealRepository.deleteAll();
+            // Reservations held by the deleted deals would otherwise last until they expire, or forever
+            mongoTemplate.updateMulti(new Query(Criteria.where("status").is(VehicleReservationService.RESERVED)),
+                    new Update().set("status", VehicleReservationService.AVAILABLE).unset("reservedBy")
+                            .unset("reservedUntil").inc("version", 1), Vehicle.class);
+            eventPublisher.publishEvent(DealChangedEvent.allDeals());
+            eventPublisher.publishEvent(VehicleChangedEvent.allStatuses());
             return ResponseEntity.ok(Map.of(
                 "success", "true",
                 "message", "All deals deleted successfully"
@@ -178,18 +245,19 @@ public class DataController {
         return vehicles;
     }
 
-    private List<Deal> createSampleDeals(List<Vehicle> vehicles) {
+    private List<Deal> createSampleDeals(List<Vehicle> vehicles, String brokerId) {
         List<Deal> deals = new ArrayList<>();
         
         // Create some sample deals with available vehicles
-        for (int i = 0; i < Math.min(3, vehicles.size()); i++) {
-            Vehicle vehicle = vehicles.get(i);
+        List<Vehicle> available = vehicles.stream()
+                .filter(vehicle -> VehicleReservationService.AVAILABLE.equals(vehicle.getStatus())).toList();
+        for (int i = 0; i < Math.min(3, available.size()); i++) {
+            Vehicle vehicle = available.get(i);
             
             Deal deal = new Deal();
             deal.setVehicleId(vehicle.getId());
-            deal.setBrokerId("broker123"); // Sample broker ID
+            deal.setBrokerId(brokerId);
             deal.setSalePrice(vehicle.getPrice() * 0.95); // 5% discount
-            deal.setCommission(deal.getSalePrice() * 0.2);
             deal.setDate(LocalDate.now().minusDays(i * 5).toString());
             deal.setStatus(i == 0 ? "completed" : (i == 1 ? "approved" : "pending"));
             
@@ -1,11 +1,13 @@
 package com.example.rscarpoint.controller;
 
-import java.time.LocalDate;
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -19,8 +21,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.rscarpoint.config.HttpCachingConfig;
+import com.example.rscarpoint.dto.BulkResultDto;
+import com.example.rscarpoint.exception.ConflictException;
+import com.example.rscarpoint.exception.ResourceNotFoundException;
 import com.example.rscarpoint.model.Deal;
 import com.example.rscarpoint.repository.DealRepository;
+import com.example.rscarpoint.repository.KeysetPager;
+import com.example.rscarpoint.service.DealService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:3003", "http://localhost:3004"}, allowCredentials = "true")
@@ -29,29 +41,71 @@ public class DealController {
     @Autowired
     private DealRepository dealRepository;
 
-    // Get all deals or deals by broker
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Get all deals, optionally filtered by broker, vehicle and status.
+    // Passing cursor, size or sort switches to a keyset-paginated CursorPageDto response.
     @GetMapping
-    public ResponseEntity<List<Deal>> getDeals(@RequestParam(required = false) String brokerId) {
+    public ResponseEntity<?> getDeals(
+            @RequestParam(required = false) String brokerId,
+            @RequestParam(required = false) String vehicleId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "desc") String direction) {
         try {
-            List<Deal> deals;
-            if (brokerId != null) {
-                deals = dealRepository.findByBrokerId(brokerId);
-            } else {
-                deals = dealRepository.findAll();
+            if (keysetPager.isPageRequest(cursor, size, sort)) {
+                return ResponseEntity.ok(dealService.getDealsPage(brokerId, vehicleId, status, sort, direction, cursor, size));
             }
-            return ResponseEntity.ok(deals);
+            return ResponseEntity.ok(dealService.getDeals(brokerId, vehicleId, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             System.err.println("Error fetching deals: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    // Same filters and paging as GET /api/deals, with vehicle make/model and broker name filled in
+    @GetMapping("/summaries")
+    public ResponseEntity<?> getDealSummaries(
+            @RequestParam(required = false) String brokerId,
+            @RequestParam(required = false) String vehicleId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "desc") String direction) {
+        try {
+            if (keysetPager.isPageRequest(cursor, size, sort)) {
+                return ResponseEntity.ok(dealService.getDealSummariesPage(brokerId, vehicleId, status, sort,
+                        direction, cursor, size));
+            }
+            return ResponseEntity.ok(dealService.getDealSummaries(brokerId, vehicleId, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error fetching deal summaries: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     // Get deal by ID
     @GetMapping("/{id}")
     public ResponseEntity<Deal> getDealById(@PathVariable String id) {
         try {
             Optional<Deal> deal = dealRepository.findById(id);
-            return deal.map(ResponseEntity::ok)
+            return deal.map(d -> ResponseEntity.ok()
+                              .eTag(HttpCachingConfig.versionTag(d.getId(), d.getVersion()))
+                              .body(d))
                       .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             System.err.println("Error fetching deal by ID: " + e.getMessage());
@@ -64,56 +118,77 @@ public class DealController {
     public ResponseEntity<Deal> createDeal(@RequestBody Deal deal) {
         try {
             // Validate required fields
-            if (deal.getVehicleId() == null || deal.getBrokerId() == null || deal.getSalePrice() <= 0) {
+            if (DealService.validateNewDeal(deal) != null) {
                 return ResponseEntity.badRequest().body(null);
             }
 
-            // Calculate commission (20% of salePrice)
-            deal.setCommission(deal.getSalePrice() * 0.2);
-            deal.setStatus(deal.getStatus() != null ? deal.getStatus() : "pending");
-            deal.setDate(deal.getDate() != null ? deal.getDate() : LocalDate.now().toString());
-            
-            Deal savedDeal = dealRepository.save(deal);
+            // Commission, default status and date are filled in by DealService
+            Deal savedDeal = dealService.createDeal(deal);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedDeal);
+        } catch (ConflictException e) {
+            // The vehicle is already reserved or sold
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
         } catch (Exception e) {
             System.err.println("Error creating deal: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    // Bulk import for admins: a JSON array or an NDJSON stream of deals, validated like a single create
+    // and reserving each vehicle. Always 200 with one result per item.
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkResultDto> createDeals(HttpServletRequest request) {
+        try (MappingIterator<Deal> deals = objectMapper.readerFor(Deal.class).readValues(request.getInputStream())) {
+            return ResponseEntity.ok(dealService.createDeals(deals));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            System.err.println("Error importing deals: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Bulk update: the same body formats, each item carries the id of the deal to update.
+    // Status and vehicle changes follow the rules of PUT /api/deals/{id} per item.
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkResultDto> updateDeals(HttpServletRequest request) {
+        try (MappingIterator<Deal> deals = objectMapper.readerFor(Deal.class).readValues(request.getInputStream())) {
+            return ResponseEntity.ok(dealService.updateDeals(deals));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            System.err.println("Error updating deals: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Bulk delete: a JSON array of deal ids; the vehicles they held are released
+    @DeleteMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkResultDto> deleteDeals(@RequestBody List<String> ids) {
+        try {
+            return ResponseEntity.ok(dealService.deleteDeals(ids.iterator()));
+        } catch (Exception e) {
+            System.err.println("Error deleting deals: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     // Update existing deal
     @PutMapping("/{id}")
     public ResponseEntity<Deal> updateDeal(@PathVariable String id, @RequestBody Deal dealDetails) {
         try {
-            Optional<Deal> dealOptional = dealRepository.findById(id);
-            
-            if (dealOptional.isPresent()) {
-                Deal deal = dealOptional.get();
-                
-                // Update fields
-                if (dealDetails.getVehicleId() != null) {
-                    deal.setVehicleId(dealDetails.getVehicleId());
-                }
-                if (dealDetails.getBrokerId() != null) {
-                    deal.setBrokerId(dealDetails.getBrokerId());
-                }
-                if (dealDetails.getSalePrice() > 0) {
-                    deal.setSalePrice(dealDetails.getSalePrice());
-                    // Recalculate commission when sale price changes
-                    deal.setCommission(dealDetails.getSalePrice() * 0.2);
-                }
-                if (dealDetails.getStatus() != null) {
-                    deal.setStatus(dealDetails.getStatus());
-                }
-                if (dealDetails.getDate() != null) {
-                    deal.setDate(dealDetails.getDate());
-                }
-                
-                Deal updatedDeal = dealRepository.save(deal);
-                return ResponseEntity.ok(updatedDeal);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
+            return ResponseEntity.ok(dealService.updateDeal(id, dealDetails));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException | ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
         } catch (Exception e) {
             System.err.println("Error updating deal: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -124,8 +199,7 @@ public class DealController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteDeal(@PathVariable String id) {
         try {
-            if (dealRepository.existsById(id)) {
-                dealRepository.deleteById(id);
+            if (dealService.deleteDeal(id)) {
                 return ResponseEntity.noContent().build();
             } else {
                 return ResponseEntity.notFound().build();
@@ -151,24 +225,19 @@ public class DealController {
     // Update deal status (for admin approval workflow)
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Deal> updateDealStatus(@PathVariable String id, @RequestParam String status) {
+    public ResponseEntity<Deal> updateDealStatus(@PathVariable String id, @RequestParam String status,
+                                                 @RequestParam(required = false) Long version) {
         try {
-            Optional<Deal> dealOptional = dealRepository.findById(id);
-            
-            if (dealOptional.isPresent()) {
-                Deal deal = dealOptional.get();
-                
-                // Validate status
-                if (!status.matches("pending|approved|completed|rejected")) {
-                    return ResponseEntity.badRequest().body(null);
-                }
-                
-                deal.setStatus(status);
-                Deal updatedDeal = dealRepository.save(deal);
-                return ResponseEntity.ok(updatedDeal);
-            } else {
-                return ResponseEntity.notFound().build();
+            // Validate status
+            if (!status.matches("pending|approved|completed|rejected")) {
+                return ResponseEntity.badRequest().body(null);
             }
+            
+            return ResponseEntity.ok(dealService.updateDealStatus(id, status, version));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
         } catch (Exception e) {
             System.err.println("Error updating deal status: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -1,9 +1,14 @@
 package com.example.rscarpoint.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,29 +21,69 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.rscarpoint.dto.CursorPageDto;
 import com.example.rscarpoint.model.User;
+import com.example.rscarpoint.repository.KeysetPager;
+import com.example.rscarpoint.repository.KeysetSort;
 import com.example.rscarpoint.repository.UserRepository;
+import com.example.rscarpoint.security.AuthenticationCache;
+import com.example.rscarpoint.security.TokenRevocationService;
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:3003", "http://localhost:3004"}, allowCredentials = "true")
 @RequestMapping("/api/users")
 public class UserController {
+    // Keyset sort options for paged listings, see KeysetPager
+    private static final Map<String, KeysetSort<User>> SORTS = Map.of(
+        "id", new KeysetSort<>("_id", User::getId),
+        "name", new KeysetSort<>("name", User::getName),
+        "joinDate", new KeysetSort<>("joinDate", User::getJoinDate)
+    );
+
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private KeysetPager keysetPager;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Passing cursor, size or sort switches to a keyset-paginated CursorPageDto response
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "asc") String direction) {
         try {
+            if (keysetPager.isPageRequest(cursor, size, sort)) {
+                Query filter = new Query();
+                if (role != null) {
+                    filter.addCriteria(Criteria.where("role").is(role));
+                }
+                filter.fields().exclude("password");
+                CursorPageDto<User> page = keysetPager.page(filter, User.class,
+                        KeysetSort.resolve(SORTS, sort, "id"), direction, cursor, size);
+                return ResponseEntity.ok(page);
+            }
             List<User> users = userRepository.findAll();
             // Remove password from response for security
             users.forEach(user -> user.setPassword(null));
             return ResponseEntity.ok(users);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             System.err.println("Error fetching users: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -92,8 +137,11 @@ public class UserController {
             }
             
             User savedUser = userRepository.save(user);
+            tokenRevocationService.registered(savedUser);
             savedUser.setPassword(null); // Remove password from response
             return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
         } catch (Exception e) {
             System.err.println("Error creating user: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -108,6 +156,10 @@ public class UserController {
             
             if (userOptional.isPresent()) {
                 User user = userOptional.get();
+                String previousEmail = user.getEmail();
+                String previousRole = user.getRole();
+                String previousStatus = user.getStatus();
+                boolean passwordChanged = false;
                 
                 // Update fields if provided
                 if (userDetails.getName() != null) {
@@ -136,14 +188,28 @@ public class UserController {
                 // Only update password if a new one is provided
                 if (userDetails.getPassword() != null && !userDetails.getPassword().trim().isEmpty()) {
                     user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+                    passwordChanged = true;
                 }
                 
                 User updatedUser = userRepository.save(user);
+                // Cached authorities and issued tokens must not outlive a role, status, email or password change
+                authenticationCache.evictUser(previousEmail);
+                authenticationCache.evictUser(updatedUser.getEmail());
+                if (previousEmail != null && !previousEmail.equalsIgnoreCase(updatedUser.getEmail())) {
+                    tokenRevocationService.revokeEmail(previousEmail);
+                    tokenRevocationService.registered(updatedUser);
+                }
+                if (passwordChanged || !Objects.equals(previousRole, updatedUser.getRole())
+                        || !Objects.equals(previousStatus, updatedUser.getStatus())) {
+                    tokenRevocationService.revokeTokens(updatedUser);
+                }
                 updatedUser.setPassword(null); // Remove password from response
                 return ResponseEntity.ok(updatedUser);
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
         } catch (Exception e) {
             System.err.println("Error updating user: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -162,6 +228,7 @@ public class UserController {
                 }
                 
                 userRepository.deleteById(id);
+                user.ifPresent(deleted -> tokenRevocationService.revokeEmail(deleted.getEmail()));
                 return ResponseEntity.noContent().build();
             } else {
                 return ResponseEntity.notFound().build();
@@ -171,4 +238,21 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-} 
\ No newline at end of file
+
+    // Signs the user out everywhere: every token issued so far stops being accepted
+    @PostMapping("/{id}/revoke-tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> revokeTokens(@PathVariable String id) {
+        try {
+            Optional<User> user = userRepository.findById(id);
+            if (user.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            long tokenVersion = tokenRevocationService.revokeTokens(user.get());
+            return ResponseEntity.ok(Map.of("tokenVersion", tokenVersion));
+        } catch (Exception e) {
+            System.err.println("Error revoking tokens: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.rscarpoint.controller;
 
 import java.io.IOException;
-import java.util.Base64;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -21,22 +25,57 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.rscarpoint.config.HttpCachingConfig;
+import com.example.rscarpoint.dto.BulkResultDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
 import com.example.rscarpoint.model.Vehicle;
+import com.example.rscarpoint.repository.KeysetPager;
 import com.example.rscarpoint.repository.VehicleRepository;
+import com.example.rscarpoint.service.ImageStore;
+import com.example.rscarpoint.service.StoredImage;
+import com.example.rscarpoint.service.VehicleService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @CrossOrigin(origins = {"http://localhost:3003", "http://localhost:3004"}, allowCredentials = "true")
 @RequestMapping("/api/vehicles")
 public class VehicleController {
+    private static final String FULL_VIEW = "full";
+    private static final String FACETS_VIEW = "facets";
+    private static final int MAX_TEXT_RESULTS = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+
     @Autowired
     private VehicleRepository vehicleRepository;
 
-    // Public endpoint - anyone can view vehicles
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Public endpoint - anyone can view vehicles; returns card rows unless view=full is requested.
+    // Passing cursor, size or sort switches to a keyset-paginated CursorPageDto response.
     @GetMapping
-    public ResponseEntity<List<Vehicle>> getAllVehicles() {
+    public ResponseEntity<?> getAllVehicles(
+            @RequestParam(defaultValue = "card") String view,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "asc") String direction) {
         try {
-            List<Vehicle> vehicles = vehicleRepository.findAll();
-            return ResponseEntity.ok(vehicles);
+            return ResponseEntity.ok(listVehicles(new VehicleSearchDto(), view, cursor, size, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             System.err.println("Error fetching vehicles: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -47,8 +86,11 @@ public class VehicleController {
     @GetMapping("/{id}")
     public ResponseEntity<Vehicle> getVehicleById(@PathVariable String id) {
         try {
-            Optional<Vehicle> vehicle = vehicleRepository.findById(id);
-            return vehicle.map(ResponseEntity::ok)
+            Optional<Vehicle> vehicle = vehicleService.getVehicleById(id);
+            // A matching If-None-Match is answered with 304 by Spring MVC
+            return vehicle.map(v -> ResponseEntity.ok()
+                                 .eTag(HttpCachingConfig.versionTag(v.getId(), v.getVersion()))
+                                 .body(v))
                          .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             System.err.println("Error fetching vehicle by ID: " + e.getMessage());
@@ -62,18 +104,11 @@ public class VehicleController {
     public ResponseEntity<Vehicle> createVehicle(@RequestBody Vehicle vehicle) {
         try {
             // Validate required fields
-            if (vehicle.getMake() == null || vehicle.getMake().trim().isEmpty() ||
-                vehicle.getModel() == null || vehicle.getModel().trim().isEmpty() ||
-                vehicle.getYear() <= 1900 || vehicle.getPrice() <= 0) {
+            if (VehicleService.validateNewVehicle(vehicle) != null) {
                 return ResponseEntity.badRequest().body(null);
             }
             
-            // Set defaults
-            if (vehicle.getStatus() == null) {
-                vehicle.setStatus("Available");
-            }
-            
-            Vehicle savedVehicle = vehicleRepository.save(vehicle);
+            Vehicle savedVehicle = vehicleService.saveVehicle(vehicle);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedVehicle);
         } catch (Exception e) {
             System.err.println("Error creating vehicle: " + e.getMessage());
@@ -81,59 +116,57 @@ public class VehicleController {
         }
     }
 
+    // Bulk import for admins: a JSON array or an NDJSON stream of vehicles, validated like a single create.
+    // Always 200 with one result per item; items are written in unordered bulkWrite batches.
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkResultDto> createVehicles(HttpServletRequest request) {
+        try (MappingIterator<Vehicle> vehicles = objectMapper.readerFor(Vehicle.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(vehicleService.createVehicles(vehicles));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            System.err.println("Error importing vehicles: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Bulk update: the same body formats, each item carries the id of the vehicle to update
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkResultDto> updateVehicles(HttpServletRequest request) {
+        try (MappingIterator<Vehicle> vehicles = objectMapper.readerFor(Vehicle.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(vehicleService.updateVehicles(vehicles));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            System.err.println("Error updating vehicles: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Bulk delete: a JSON array of vehicle ids
+    @DeleteMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkResultDto> deleteVehicles(@RequestBody List<String> ids) {
+        try {
+            return ResponseEntity.ok(vehicleService.deleteVehicles(ids.iterator()));
+        } catch (Exception e) {
+            System.err.println("Error deleting vehicles: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     // Only admin can update vehicles
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Vehicle> updateVehicle(@PathVariable String id, @RequestBody Vehicle vehicleDetails) {
         try {
-            Optional<Vehicle> vehicleOptional = vehicleRepository.findById(id);
-            
-            if (vehicleOptional.isPresent()) {
-                Vehicle vehicle = vehicleOptional.get();
-                
-                // Update fields if provided
-                if (vehicleDetails.getMake() != null && !vehicleDetails.getMake().trim().isEmpty()) {
-                    vehicle.setMake(vehicleDetails.getMake());
-                }
-                if (vehicleDetails.getModel() != null && !vehicleDetails.getModel().trim().isEmpty()) {
-                    vehicle.setModel(vehicleDetails.getModel());
-                }
-                if (vehicleDetails.getYear() > 1900) {
-                    vehicle.setYear(vehicleDetails.getYear());
-                }
-                if (vehicleDetails.getPrice() > 0) {
-                    vehicle.setPrice(vehicleDetails.getPrice());
-                }
-                if (vehicleDetails.getMileage() >= 0) {
-                    vehicle.setMileage(vehicleDetails.getMileage());
-                }
-                if (vehicleDetails.getFuelType() != null) {
-                    vehicle.setFuelType(vehicleDetails.getFuelType());
-                }
-                if (vehicleDetails.getTransmission() != null) {
-                    vehicle.setTransmission(vehicleDetails.getTransmission());
-                }
-                if (vehicleDetails.getEngineCapacity() != null) {
-                    vehicle.setEngineCapacity(vehicleDetails.getEngineCapacity());
-                }
-                if (vehicleDetails.getManufactureDate() != null) {
-                    vehicle.setManufactureDate(vehicleDetails.getManufactureDate());
-                }
-                if (vehicleDetails.getDescription() != null) {
-                    vehicle.setDescription(vehicleDetails.getDescription());
-                }
-                if (vehicleDetails.getStatus() != null) {
-                    vehicle.setStatus(vehicleDetails.getStatus());
-                }
-                if (vehicleDetails.getImageBase64() != null) {
-                    vehicle.setImageBase64(vehicleDetails.getImageBase64());
-                }
-                
-                Vehicle updatedVehicle = vehicleRepository.save(vehicle);
-                return ResponseEntity.ok(updatedVehicle);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
+            return vehicleService.updateVehicle(id, vehicleDetails)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             System.err.println("Error updating vehicle: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -145,8 +178,7 @@ public class VehicleController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteVehicle(@PathVariable String id) {
         try {
-            if (vehicleRepository.existsById(id)) {
-                vehicleRepository.deleteById(id);
+            if (vehicleService.deleteVehicle(id)) {
                 return ResponseEntity.noContent().build();
             } else {
                 return ResponseEntity.notFound().build();
@@ -178,21 +210,13 @@ public class VehicleController {
                 return ResponseEntity.badRequest().body(null);
             }
             
-            Optional<Vehicle> vehicleOptional = vehicleRepository.findById(id);
-            if (vehicleOptional.isPresent()) {
-                Vehicle vehicle = vehicleOptional.get();
-                
-                try {
-                    String base64 = Base64.getEncoder().encodeToString(file.getBytes());
-                    vehicle.setImageBase64(base64);
-                    Vehicle updatedVehicle = vehicleRepository.save(vehicle);
-                    return ResponseEntity.ok(updatedVehicle);
-                } catch (IOException e) {
-                    System.err.println("Error processing image file: " + e.getMessage());
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-                }
-            } else {
-                return ResponseEntity.notFound().build();
+            try (InputStream content = file.getInputStream()) {
+                return vehicleService.replaceImage(id, content, contentType, file.getOriginalFilename())
+                        .map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build());
+            } catch (IOException e) {
+                System.err.println("Error processing image file: " + e.getMessage());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
             }
         } catch (Exception e) {
             System.err.println("Error uploading image: " + e.getMessage());
@@ -200,32 +224,99 @@ public class VehicleController {
         }
     }
 
-    // Search vehicles by make, model, or other criteria
+    // Public endpoint - streams the raw image bytes; supports If-None-Match/If-Modified-Since and Range
+    @GetMapping("/{id}/image")
+    public ResponseEntity<Resource> getVehicleImage(@PathVariable String id) {
+        try {
+            Optional<StoredImage> image = vehicleRepository.findImageRefById(id)
+                    .map(Vehicle::getImageId)
+                    .flatMap(imageStore::find);
+            if (image.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // Image ids are never reused, so the id is a strong validator for the content
+            StoredImage storedImage = image.get();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(storedImage.getContentType()))
+                    .eTag("\"" + storedImage.getId() + "\"")
+                    .lastModified(storedImage.lastModified())
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic())
+                    .body(storedImage);
+        } catch (Exception e) {
+            System.err.println("Error fetching vehicle image: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Search vehicles by make, model, or other criteria; view=facets returns the filter sidebar counts instead
     @GetMapping("/search")
-    public ResponseEntity<List<Vehicle>> searchVehicles(
+    public ResponseEntity<?> searchVehicles(
             @RequestParam(required = false) String make,
             @RequestParam(required = false) String model,
             @RequestParam(required = false) String fuelType,
+            @RequestParam(required = false) String transmission,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(required = false) Integer minYear,
-            @RequestParam(required = false) Integer maxYear) {
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Integer minMileage,
+            @RequestParam(required = false) Integer maxMileage,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "card") String view,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "asc") String direction) {
         try {
-            List<Vehicle> allVehicles = vehicleRepository.findAll();
-            List<Vehicle> filteredVehicles = allVehicles.stream()
-                .filter(vehicle -> make == null || vehicle.getMake().toLowerCase().contains(make.toLowerCase()))
-                .filter(vehicle -> model == null || vehicle.getModel().toLowerCase().contains(model.toLowerCase()))
-                .filter(vehicle -> fuelType == null || vehicle.getFuelType().toLowerCase().contains(fuelType.toLowerCase()))
-                .filter(vehicle -> minPrice == null || vehicle.getPrice() >= minPrice)
-                .filter(vehicle -> maxPrice == null || vehicle.getPrice() <= maxPrice)
-                .filter(vehicle -> minYear == null || vehicle.getYear() >= minYear)
-                .filter(vehicle -> maxYear == null || vehicle.getYear() <= maxYear)
-                .toList();
-            
-            return ResponseEntity.ok(filteredVehicles);
+            VehicleSearchDto searchDto = new VehicleSearchDto(make, model, fuelType, transmission,
+                    minPrice, maxPrice, minYear, maxYear, minMileage, maxMileage, status);
+            if (FACETS_VIEW.equalsIgnoreCase(view)) {
+                return ResponseEntity.ok(vehicleService.getVehicleFacets(searchDto));
+            }
+            return ResponseEntity.ok(listVehicles(searchDto, view, cursor, size, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             System.err.println("Error searching vehicles: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
+
+    // Free-text search over make, model, description, fuel type and transmission, ranked by relevance
+    // and tolerant of small typos. Returns card rows unless view=full is requested.
+    @GetMapping("/search/text")
+    public ResponseEntity<?> searchVehiclesByText(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "card") String view) {
+        try {
+            int boundedLimit = Math.max(1, Math.min(limit, MAX_TEXT_RESULTS));
+            return ResponseEntity.ok(FULL_VIEW.equalsIgnoreCase(view)
+                    ? vehicleService.searchVehiclesByText(q, boundedLimit)
+                    : vehicleService.searchVehicleCardsByText(q, boundedLimit));
+        } catch (Exception e) {
+            System.err.println("Error searching vehicles by text: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Make/model autocomplete with vehicle counts; answered from memory, so it can fire on every keystroke
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestVehicles(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(vehicleService.suggestVehicles(q, boundedLimit));
+    }
+
+    private Object listVehicles(VehicleSearchDto searchDto, String view, String cursor, Integer size,
+                                String sort, String direction) {
+        boolean fullView = FULL_VIEW.equalsIgnoreCase(view);
+        if (keysetPager.isPageRequest(cursor, size, sort)) {
+            return fullView
+                    ? vehicleService.searchVehiclePage(searchDto, sort, direction, cursor, size)
+                    : vehicleService.searchVehicleCardPage(searchDto, sort, direction, cursor, size);
+        }
+        return fullView ? vehicleService.searchVehicles(searchDto) : vehicleService.searchVehicleCards(searchDto);
+    }
 } 
\ No newline at end of file
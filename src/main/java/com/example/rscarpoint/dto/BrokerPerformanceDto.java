@@ -0,0 +1,14 @@
+package com.example.rscarpoint.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrokerPerformanceDto {
+    private String brokerId;
+    private double totalSales;
+    private long dealCount;
+}
@@ -0,0 +1,16 @@
+package com.example.rscarpoint.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Outcome of one item of a bulk request; index is the item's position in the request body
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResultDto {
+    private int index;
+    private String id;
+    private String status; // created, updated, deleted or failed
+    private String error;
+}
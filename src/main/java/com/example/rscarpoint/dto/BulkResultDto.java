@@ -0,0 +1,32 @@
+package com.example.rscarpoint.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Response of the /bulk endpoints: totals plus one result per item, in request order
+@Data
+@NoArgsConstructor
+public class BulkResultDto {
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResultDto> results = new ArrayList<>();
+
+    public void success(int index, String id, String status) {
+        succeeded++;
+        results.add(new BulkItemResultDto(index, id, status, null));
+    }
+
+    public void failure(int index, String id, String error) {
+        failed++;
+        results.add(new BulkItemResultDto(index, id, "failed", error));
+    }
+
+    public BulkResultDto sorted() {
+        results.sort(Comparator.comparingInt(BulkItemResultDto::getIndex));
+        return this;
+    }
+}
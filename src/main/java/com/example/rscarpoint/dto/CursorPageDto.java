@@ -0,0 +1,31 @@
+package com.example.rscarpoint.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// One page of a keyset-paginated listing; pass nextCursor back as ?cursor= to get the following page
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int size;
+    private String sort;
+    private String direction;
+
+    public <R> CursorPageDto<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().<R>map(mapper).toList();
+        return new CursorPageDto<>(mapped, nextCursor, hasMore, size, sort, direction);
+    }
+
+    // For mappers that need the whole page at once, e.g. to batch lookups across its items
+    public <R> CursorPageDto<R> mapItems(Function<List<T>, List<R>> mapper) {
+        return new CursorPageDto<>(mapper.apply(items), nextCursor, hasMore, size, sort, direction);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.rscarpoint.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DealTotalsDto {
+    private long dealCount;
+    private double totalRevenue;
+    private double totalCommission;
+
+    public double getAverageDealValue() {
+        return dealCount == 0 ? 0 : totalRevenue / dealCount;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.rscarpoint.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Vehicles priced from min (inclusive) up to max (exclusive); max is null for the open top band
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBandDto {
+    private double min;
+    private Double max;
+    private long count;
+}
@@ -0,0 +1,18 @@
+package com.example.rscarpoint.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// One time bucket of the sales series; start/end are inclusive yyyy-MM-dd dates clipped to the requested range
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesBucketDto {
+    private String period;
+    private String start;
+    private String end;
+    private long sales;
+    private double revenue;
+    private double commission;
+}
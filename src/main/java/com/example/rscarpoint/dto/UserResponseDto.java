@@ -1,5 +1,7 @@
 package com.example.rscarpoint.dto;
 
+import com.example.rscarpoint.model.User;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -16,4 +18,9 @@ public class UserResponseDto {
     private String joinDate;
     private String lastLogin;
     // Note: password is intentionally excluded for security
+
+    public static UserResponseDto from(User user) {
+        return new UserResponseDto(user.getId(), user.getName(), user.getEmail(), user.getRole(),
+                user.getStatus(), user.getJoinDate(), user.getLastLogin());
+    }
 }
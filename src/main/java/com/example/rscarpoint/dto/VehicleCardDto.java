@@ -0,0 +1,37 @@
+package com.example.rscarpoint.dto;
+
+import com.example.rscarpoint.model.Vehicle;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Lightweight vehicle listing row; the full document is only served by GET /api/vehicles/{id}
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleCardDto {
+    // Document fields loaded by the card projection (imageId is only used to build thumbnailUrl)
+    public static final String[] FIELDS = {
+        "make", "model", "year", "price", "mileage", "fuelType", "transmission", "status", "imageId"
+    };
+
+    private String id;
+    private String make;
+    private String model;
+    private int year;
+    private double price;
+    private int mileage;
+    private String fuelType;
+    private String transmission;
+    private String status;
+    private String thumbnailUrl;
+
+    public static VehicleCardDto from(Vehicle vehicle) {
+        String thumbnailUrl = vehicle.getImageId() != null
+                ? "/api/vehicles/" + vehicle.getId() + "/image?v=" + vehicle.getImageId()
+                : null;
+        return new VehicleCardDto(vehicle.getId(), vehicle.getMake(), vehicle.getModel(), vehicle.getYear(),
+                vehicle.getPrice(), vehicle.getMileage(), vehicle.getFuelType(), vehicle.getTransmission(),
+                vehicle.getStatus(), thumbnailUrl);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.rscarpoint.dto;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Filter sidebar counts: each facet honours every active filter except its own, total honours them all
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleFacetsDto {
+    private long total;
+    private List<FacetCountDto> makes;
+    private List<FacetCountDto> fuelTypes;
+    private List<FacetCountDto> transmissions;
+    private List<FacetCountDto> years;
+    private List<PriceBandDto> priceBands;
+}
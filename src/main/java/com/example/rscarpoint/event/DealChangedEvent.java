@@ -0,0 +1,67 @@
+package com.example.rscarpoint.event;
+
+import java.util.List;
+
+import com.example.rscarpoint.model.Deal;
+
+/**
+ * Published after a deal is created, updated or deleted.
+ * {@code previous} is null for creations and {@code current} is null for deletions;
+ * both are null when a bulk operation changed an unknown set of deals.
+ * The bulk endpoints publish one event per batch instead: the deals as they were before the batch in
+ * {@code previousBatch} and as they are after it in {@code currentBatch}.
+ */
+public class DealChangedEvent {
+    private final Deal previous;
+    private final Deal current;
+    private final List<Deal> previousBatch;
+    private final List<Deal> currentBatch;
+
+    public DealChangedEvent(Deal previous, Deal current) {
+        this(previous, current, List.of(), List.of());
+    }
+
+    private DealChangedEvent(Deal previous, Deal current, List<Deal> previousBatch, List<Deal> currentBatch) {
+        this.previous = previous;
+        this.current = current;
+        this.previousBatch = previousBatch;
+        this.currentBatch = currentBatch;
+    }
+
+    public static DealChangedEvent allDeals() {
+        return new DealChangedEvent(null, null);
+    }
+
+    public static DealChangedEvent created(List<Deal> deals) {
+        return new DealChangedEvent(null, null, List.of(), List.copyOf(deals));
+    }
+
+    public static DealChangedEvent updated(List<Deal> previous, List<Deal> current) {
+        return new DealChangedEvent(null, null, List.copyOf(previous), List.copyOf(current));
+    }
+
+    public static DealChangedEvent deleted(List<Deal> deals) {
+        return new DealChangedEvent(null, null, List.copyOf(deals), List.of());
+    }
+
+    public Deal getPrevious() {
+        return previous;
+    }
+
+    public Deal getCurrent() {
+        return current;
+    }
+
+    // Deals of a bulk batch before and after it; both empty for every other event
+    public List<Deal> getPreviousBatch() {
+        return previousBatch;
+    }
+
+    public List<Deal> getCurrentBatch() {
+        return currentBatch;
+    }
+
+    public boolean isBulk() {
+        return previous == null && current == null && previousBatch.isEmpty() && currentBatch.isEmpty();
+    }
+}
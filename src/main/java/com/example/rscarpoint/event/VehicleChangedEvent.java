@@ -0,0 +1,45 @@
+package com.example.rscarpoint.event;
+
+/**
+ * Published after a vehicle is created, updated, deleted or changes status or image.
+ * {@code vehicleId} is null when a bulk operation changed an unknown set of vehicles.
+ * Status-only events (reservations, releases, Sold) leave the text fields untouched, so listeners
+ * that index only make, model and the like can skip them.
+ */
+public class VehicleChangedEvent {
+    private final String vehicleId;
+    private final boolean statusOnly;
+
+    public VehicleChangedEvent(String vehicleId) {
+        this(vehicleId, false);
+    }
+
+    private VehicleChangedEvent(String vehicleId, boolean statusOnly) {
+        this.vehicleId = vehicleId;
+        this.statusOnly = statusOnly;
+    }
+
+    public static VehicleChangedEvent allVehicles() {
+        return new VehicleChangedEvent(null);
+    }
+
+    public static VehicleChangedEvent statusChanged(String vehicleId) {
+        return new VehicleChangedEvent(vehicleId, true);
+    }
+
+    public static VehicleChangedEvent allStatuses() {
+        return new VehicleChangedEvent(null, true);
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    public boolean isBulk() {
+        return vehicleId == null;
+    }
+
+    public boolean isStatusOnly() {
+        return statusOnly;
+    }
+}
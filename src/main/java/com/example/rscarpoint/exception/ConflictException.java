@@ -0,0 +1,8 @@
+package com.example.rscarpoint.exception;
+
+// The write lost against a concurrent change or is not allowed from the resource's current state
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
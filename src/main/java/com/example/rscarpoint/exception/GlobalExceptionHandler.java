@@ -1,6 +1,7 @@
 package com.example.rscarpoint.exception;
 
 import com.example.rscarpoint.dto.ApiResponseDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -25,6 +26,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
     
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiResponseDto<String>> handleConflictException(
+            ConflictException ex, WebRequest request) {
+        ApiResponseDto<String> response = new ApiResponseDto<>(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+    
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponseDto<String>> handleTooManyRequestsException(
+            TooManyRequestsException ex, WebRequest request) {
+        ApiResponseDto<String> response = new ApiResponseDto<>(false, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+    
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ApiResponseDto<String>> handleAccessDeniedException(
             AccessDeniedException ex, WebRequest request) {
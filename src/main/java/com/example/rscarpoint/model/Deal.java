@@ -1,18 +1,34 @@
 package com.example.rscarpoint.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document(collection = "deals")
+// Trailing _id keeps the keyset pagination order (date, _id) index-backed, see KeysetPager
+@CompoundIndex(name = "broker_date_id", def = "{'brokerId': 1, 'date': -1, '_id': -1}")
+@CompoundIndex(name = "status_date_id", def = "{'status': 1, 'date': -1, '_id': -1}")
+@CompoundIndex(name = "date_id", def = "{'date': 1, '_id': 1}")
+@CompoundIndex(name = "salePrice_id", def = "{'salePrice': 1, '_id': 1}")
 public class Deal {
     @Id
     private String id;
+    @Indexed(name = "vehicleId")
     private String vehicleId;
     private String brokerId;
     private double salePrice;
     private double commission; // 20% of salePrice
     private String date;
     private String status; // pending, completed, approved
+    @JsonIgnore
+    private String vehicleMake; // Make when the deal was recorded; names its deal_rollups bucket, see DealRollupService
+    @Version
+    private Long version; // Bumped on every save; backs the ETag of GET /api/deals/{id}
+    @JsonIgnore
+    private String pendingVehicleStatus; // Vehicle status still to be applied, see DealOutbox
 } 
\ No newline at end of file
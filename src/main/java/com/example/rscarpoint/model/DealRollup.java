@@ -0,0 +1,22 @@
+package com.example.rscarpoint.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Pre-aggregated deal totals per (date, broker, make, status), maintained by DealRollupService
+@Data
+@Document(collection = "deal_rollups")
+@CompoundIndex(name = "date_broker", def = "{'date': 1, 'brokerId': 1}")
+public class DealRollup {
+    @Id
+    private String id; // date|brokerId|make|status, so every bucket has exactly one document
+    private String date;
+    private String brokerId;
+    private String make;
+    private String status;
+    private long dealCount;
+    private double revenue;
+    private double commission;
+}
@@ -1,19 +1,42 @@
 package com.example.rscarpoint.model;
 
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document(collection = "users")
+@CompoundIndex(name = "joinDate_id", def = "{'joinDate': 1, '_id': 1}")
+@CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}")
 public class User {
     @Id
     private String id;
     private String name;
     private String email;
+    // normalizeEmail(email), kept in step by setEmail; every email lookup is a point read on this key
+    @JsonIgnore
+    @Indexed(name = "emailKey_unique", unique = true, sparse = true)
+    private String emailKey;
     private String role; // user, broker, admin
     private String status; // active, inactive
     private String joinDate;
     private String lastLogin;
     private String password;
+    private long tokenVersion; // Bumped to revoke every token issued before, see TokenRevocationService
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailKey = normalizeEmail(email);
+    }
+
+    // Emails compare case-insensitively and without surrounding whitespace
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
 } 
\ No newline at end of file
@@ -1,11 +1,24 @@
 package com.example.rscarpoint.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @Document(collection = "vehicles")
+@CompoundIndex(name = "status_price", def = "{'status': 1, 'price': 1}")
+@CompoundIndex(name = "make_model", def = "{'make': 1, 'model': 1}")
+// (field, _id) indexes back the keyset pagination sort orders, see KeysetPager
+@CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}")
+@CompoundIndex(name = "year_id", def = "{'year': 1, '_id': 1}")
+@CompoundIndex(name = "mileage_id", def = "{'mileage': 1, '_id': 1}")
 public class Vehicle {
     @Id
     private String id;
@@ -20,5 +33,12 @@ public class Vehicle {
     private String manufactureDate;
     private String description;
     private String status; // Available, Sold, Reserved
-    private String imageBase64; // Base64-encoded image string
+    @JsonIgnore
+    @Indexed(name = "reservedBy", sparse = true)
+    private String reservedBy; // Deal holding the vehicle while Reserved, see VehicleReservationService
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant reservedUntil; // Unset once the holding deal is approved; never taken from request bodies
+    private String imageId; // Reference into the ImageStore, served by GET /api/vehicles/{id}/image
+    @Version
+    private Long version; // Bumped on every save; backs the ETag of GET /api/vehicles/{id}
 } 
\ No newline at end of file
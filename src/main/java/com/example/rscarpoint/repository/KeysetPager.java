@@ -0,0 +1,130 @@
+package com.example.rscarpoint.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.dto.CursorPageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Keyset (seek) pagination: pages are ordered by (sort field, _id) and the next page
+ * starts strictly after the last row of the previous one, so every page costs one
+ * index range scan no matter how deep the client has scrolled.
+ */
+@Component
+public class KeysetPager {
+
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${rscarpoint.pagination.default-size:20}")
+    private int defaultSize;
+
+    @Value("${rscarpoint.pagination.max-size:100}")
+    private int maxSize;
+
+    public boolean isPageRequest(String cursor, Integer size, String sort) {
+        return cursor != null || size != null || sort != null;
+    }
+
+    // The filter query may carry a field projection; skip/limit/sort are set here
+    public <T> CursorPageDto<T> page(Query filter, Class<T> type, KeysetSort<T> sort,
+                                     String direction, String cursor, Integer size) {
+        boolean ascending = !"desc".equalsIgnoreCase(direction);
+        int pageSize = size == null ? defaultSize : Math.max(1, Math.min(size, maxSize));
+
+        Query query = Query.of(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            Map<String, Object> position = decode(cursor, sort.field(), ascending);
+            query.addCriteria(after(sort.field(), position.get("k"), (String) position.get("id"), ascending));
+        }
+        Sort.Direction sortDirection = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        query.with(Sort.by(sortDirection, sort.field()).and(Sort.by(sortDirection, "_id")));
+        query.limit(pageSize + 1);
+
+        List<T> rows = new ArrayList<>(mongoTemplate.find(query, type));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows.remove(rows.size() - 1);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            T last = rows.get(rows.size() - 1);
+            nextCursor = encode(sort.field(), ascending, sort.key().apply(last), idOf(last));
+        }
+        return new CursorPageDto<>(rows, nextCursor, hasMore, pageSize, sort.field(), ascending ? "asc" : "desc");
+    }
+
+    // Rows strictly after (value, id) in the requested order; missing/null values sort first in MongoDB
+    private Criteria after(String field, Object value, String id, boolean ascending) {
+        if (value == null) {
+            Criteria sameValue = new Criteria().andOperator(
+                    Criteria.where(field).is(null),
+                    ascending ? Criteria.where("_id").gt(id) : Criteria.where("_id").lt(id));
+            return ascending
+                    ? new Criteria().orOperator(sameValue, Criteria.where(field).ne(null))
+                    : sameValue;
+        }
+        Criteria beyondValue = ascending ? Criteria.where(field).gt(value) : Criteria.where(field).lt(value);
+        Criteria sameValue = new Criteria().andOperator(
+                Criteria.where(field).is(value),
+                ascending ? Criteria.where("_id").gt(id) : Criteria.where("_id").lt(id));
+        if (ascending) {
+            return new Criteria().orOperator(beyondValue, sameValue);
+        }
+        // Descending order also has to reach the null/missing values that sort last
+        return new Criteria().orOperator(beyondValue, sameValue, Criteria.where(field).is(null));
+    }
+
+    private String idOf(Object row) {
+        Object id = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(row.getClass())
+                .getIdentifierAccessor(row)
+                .getIdentifier();
+        return id != null ? id.toString() : null;
+    }
+
+    private String encode(String field, boolean ascending, Object value, String id) {
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("s", field);
+        position.put("d", ascending ? "asc" : "desc");
+        position.put("k", value);
+        position.put("id", id);
+        try {
+            byte[] json = CURSOR_MAPPER.writeValueAsBytes(position);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to encode cursor", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> decode(String cursor, String field, boolean ascending) {
+        Map<String, Object> position;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            position = CURSOR_MAPPER.readValue(new String(json, StandardCharsets.UTF_8), Map.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!field.equals(position.get("s")) || !(ascending ? "asc" : "desc").equals(position.get("d"))
+                || !(position.get("id") instanceof String)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        return position;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.rscarpoint.repository;
+
+import java.util.Map;
+import java.util.function.Function;
+
+// A sortable document field plus the accessor used to read its value from the last row of a page
+public record KeysetSort<T>(String field, Function<T, Object> key) {
+
+    public static <T> KeysetSort<T> resolve(Map<String, KeysetSort<T>> options, String name, String defaultName) {
+        String sortName = name != null && !name.isBlank() ? name.trim() : defaultName;
+        KeysetSort<T> sort = options.get(sortName);
+        if (sort == null) {
+            throw new IllegalArgumentException("Unsupported sort '" + sortName + "', expected one of " + options.keySet());
+        }
+        return sort;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.rscarpoint.repository;
+
+import com.example.rscarpoint.model.Vehicle;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of VehicleRepository for the read-only catalog endpoints
+public interface ReactiveVehicleRepository extends ReactiveMongoRepository<Vehicle, String>, ReactiveVehicleRepositoryCustom {
+    // Load only the image reference of a vehicle
+    @Query(value = "{'_id': ?0}", fields = "{'imageId': 1}")
+    Mono<Vehicle> findImageRefById(String id);
+}
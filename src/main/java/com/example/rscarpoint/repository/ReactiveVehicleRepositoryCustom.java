@@ -0,0 +1,14 @@
+package com.example.rscarpoint.repository;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.model.Vehicle;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveVehicleRepositoryCustom {
+    // Same filters as VehicleRepositoryCustom.search, ordered by _id; limit 0 means unlimited
+    Flux<Vehicle> search(VehicleSearchDto searchDto, int limit);
+
+    // Same filters, but only the card fields are read from MongoDB
+    Flux<VehicleCardDto> searchCards(VehicleSearchDto searchDto, int limit);
+}
@@ -0,0 +1,37 @@
+package com.example.rscarpoint.repository;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.model.Vehicle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+public class ReactiveVehicleRepositoryCustomImpl implements ReactiveVehicleRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Vehicle> search(VehicleSearchDto searchDto, int limit) {
+        return reactiveMongoTemplate.find(query(searchDto, limit), Vehicle.class);
+    }
+
+    @Override
+    public Flux<VehicleCardDto> searchCards(VehicleSearchDto searchDto, int limit) {
+        Query query = query(searchDto, limit);
+        query.fields().include(VehicleCardDto.FIELDS);
+        return reactiveMongoTemplate.find(query, Vehicle.class).map(VehicleCardDto::from);
+    }
+
+    // The driver fetches in cursor batches as the subscriber requests more, so results are never buffered whole
+    private Query query(VehicleSearchDto searchDto, int limit) {
+        Query query = VehicleQueryBuilder.toQuery(searchDto).with(Sort.by("_id"));
+        if (limit > 0) {
+            query.limit(limit);
+        }
+        return query;
+    }
+}
@@ -5,6 +5,16 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
-    // You can add custom query methods here if needed
-    Optional<User> findByEmail(String email);
-} 
\ No newline at end of file
+    // Point read on the unique emailKey index
+    Optional<User> findByEmailKey(String emailKey);
+
+    boolean existsByEmailKey(String emailKey);
+
+    default Optional<User> findByEmail(String email) {
+        return email == null ? Optional.empty() : findByEmailKey(User.normalizeEmail(email));
+    }
+
+    default boolean existsByEmail(String email) {
+        return email != null && existsByEmailKey(User.normalizeEmail(email));
+    }
+}
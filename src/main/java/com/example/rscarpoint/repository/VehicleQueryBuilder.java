@@ -0,0 +1,79 @@
+package com.example.rscarpoint.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.example.rscarpoint.dto.VehicleSearchDto;
+
+/**
+ * Translates a {@link VehicleSearchDto} into a MongoDB {@link Criteria} so that
+ * vehicle filtering runs on the server instead of in a Java stream.
+ * Every non-null field becomes one predicate; null fields are ignored.
+ */
+public final class VehicleQueryBuilder {
+
+    private VehicleQueryBuilder() {
+    }
+
+    public static Query toQuery(VehicleSearchDto searchDto) {
+        return new Query(toCriteria(searchDto));
+    }
+
+    public static Criteria toCriteria(VehicleSearchDto searchDto) {
+        List<Criteria> predicates = new ArrayList<>();
+        if (searchDto != null) {
+            // Text fields keep the old case-insensitive "contains" semantics
+            addContains(predicates, "make", searchDto.getMake());
+            addContains(predicates, "model", searchDto.getModel());
+            addContains(predicates, "fuelType", searchDto.getFuelType());
+            addContains(predicates, "transmission", searchDto.getTransmission());
+            addRange(predicates, "price", searchDto.getMinPrice(), searchDto.getMaxPrice());
+            addRange(predicates, "year", searchDto.getMinYear(), searchDto.getMaxYear());
+            addRange(predicates, "mileage", searchDto.getMinMileage(), searchDto.getMaxMileage());
+            // Status is an exact, case-insensitive match
+            if (hasText(searchDto.getStatus())) {
+                predicates.add(Criteria.where("status")
+                        .regex("^" + Pattern.quote(searchDto.getStatus().trim()) + "$", "i"));
+            }
+        }
+        return and(predicates);
+    }
+
+    static Criteria and(List<Criteria> predicates) {
+        if (predicates.isEmpty()) {
+            return new Criteria();
+        }
+        if (predicates.size() == 1) {
+            return predicates.get(0);
+        }
+        return new Criteria().andOperator(predicates);
+    }
+
+    private static void addContains(List<Criteria> predicates, String field, String value) {
+        if (hasText(value)) {
+            predicates.add(Criteria.where(field).regex(Pattern.quote(value.trim()), "i"));
+        }
+    }
+
+    private static void addRange(List<Criteria> predicates, String field, Number min, Number max) {
+        if (min == null && max == null) {
+            return;
+        }
+        Criteria range = Criteria.where(field);
+        if (min != null) {
+            range = range.gte(min);
+        }
+        if (max != null) {
+            range = range.lte(max);
+        }
+        predicates.add(range);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
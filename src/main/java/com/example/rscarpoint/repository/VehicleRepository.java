@@ -4,8 +4,9 @@ import com.example.rscarpoint.model.Vehicle;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import java.util.List;
+import java.util.Optional;
 
-public interface VehicleRepository extends MongoRepository<Vehicle, String> {
+public interface VehicleRepository extends MongoRepository<Vehicle, String>, VehicleRepositoryCustom {
     // Find vehicles by make
     List<Vehicle> findByMakeIgnoreCase(String make);
     
@@ -31,7 +32,7 @@ public interface VehicleRepository extends MongoRepository<Vehicle, String> {
     @Query("{'status': 'Available'}")
     List<Vehicle> findAvailableVehicles();
     
-    // Custom query to search vehicles by text in make or model
-    @Query("{'$or': [{'make': {'$regex': ?0, '$options': 'i'}}, {'model': {'$regex': ?0, '$options': 'i'}}]}")
-    List<Vehicle> searchByMakeOrModel(String searchText);
+    // Load only the image reference of a vehicle
+    @Query(value = "{'_id': ?0}", fields = "{'imageId': 1}")
+    Optional<Vehicle> findImageRefById(String id);
 } 
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.rscarpoint.repository;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleFacetsDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.model.Vehicle;
+import java.util.List;
+
+public interface VehicleRepositoryCustom {
+    // Search vehicles with every non-null field of the DTO applied as a server-side filter
+    List<Vehicle> search(VehicleSearchDto searchDto);
+    
+    // Same filters, but only the card fields are read from MongoDB
+    List<VehicleCardDto> searchCards(VehicleSearchDto searchDto);
+    
+    // Counts per make, fuel type, transmission, year and price band in a single $facet aggregation
+    VehicleFacetsDto facets(VehicleSearchDto searchDto);
+}
@@ -0,0 +1,174 @@
+package com.example.rscarpoint.repository;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.bucket;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.count;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.facet;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+
+import com.example.rscarpoint.dto.FacetCountDto;
+import com.example.rscarpoint.dto.PriceBandDto;
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleFacetsDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.model.Vehicle;
+import org.bson.Document;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class VehicleRepositoryCustomImpl implements VehicleRepositoryCustom {
+
+    // Lower bounds of the inventory sidebar's price bands (LKR); the last band is open-ended
+    private static final double[] PRICE_BANDS = {0, 500_000, 1_000_000, 3_000_000, 5_000_000};
+    private static final String UNPRICED = "unpriced";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Vehicle> search(VehicleSearchDto searchDto) {
+        return mongoTemplate.find(VehicleQueryBuilder.toQuery(searchDto), Vehicle.class);
+    }
+
+    @Override
+    public List<VehicleCardDto> searchCards(VehicleSearchDto searchDto) {
+        Query query = VehicleQueryBuilder.toQuery(searchDto);
+        query.fields().include(VehicleCardDto.FIELDS);
+        return mongoTemplate.find(query, Vehicle.class).stream()
+                .map(VehicleCardDto::from)
+                .toList();
+    }
+
+    @Override
+    public VehicleFacetsDto facets(VehicleSearchDto searchDto) {
+        VehicleSearchDto filters = searchDto != null ? searchDto : new VehicleSearchDto();
+        // Filters without a facet of their own narrow every count, so they run once before the $facet
+        VehicleSearchDto shared = copyOf(filters, dto -> {
+            dto.setMake(null);
+            dto.setFuelType(null);
+            dto.setTransmission(null);
+            dto.setMinYear(null);
+            dto.setMaxYear(null);
+            dto.setMinPrice(null);
+            dto.setMaxPrice(null);
+        });
+        VehicleSearchDto facetFilters = copyOf(filters, dto -> {
+            dto.setModel(null);
+            dto.setMinMileage(null);
+            dto.setMaxMileage(null);
+            dto.setStatus(null);
+        });
+
+        Object[] boundaries = new Object[PRICE_BANDS.length + 1];
+        for (int i = 0; i < PRICE_BANDS.length; i++) {
+            boundaries[i] = PRICE_BANDS[i];
+        }
+        boundaries[PRICE_BANDS.length] = Double.MAX_VALUE;
+
+        // Each facet drops its own filter so the sidebar still offers the alternatives to the current choice
+        Aggregation aggregation = newAggregation(
+                match(VehicleQueryBuilder.toCriteria(shared)),
+                facet(match(VehicleQueryBuilder.toCriteria(facetFilters)), count().as("count")).as("total")
+                        .and(textCounts(excluding(facetFilters, dto -> dto.setMake(null)), "make")).as("makes")
+                        .and(textCounts(excluding(facetFilters, dto -> dto.setFuelType(null)), "fuelType")).as("fuelTypes")
+                        .and(textCounts(excluding(facetFilters, dto -> dto.setTransmission(null)), "transmission"))
+                                .as("transmissions")
+                        .and(match(excluding(facetFilters, dto -> {
+                                    dto.setMinYear(null);
+                                    dto.setMaxYear(null);
+                                })),
+                                group("year").count().as("count"),
+                                sort(Sort.Direction.DESC, "_id")).as("years")
+                        .and(match(excluding(facetFilters, dto -> {
+                                    dto.setMinPrice(null);
+                                    dto.setMaxPrice(null);
+                                })),
+                                bucket("price").withBoundaries(boundaries).withDefaultBucket(UNPRICED)
+                                        .andOutputCount().as("count")).as("priceBands"));
+
+        Document result = mongoTemplate.aggregate(aggregation, Vehicle.class, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return new VehicleFacetsDto(0, List.of(), List.of(), List.of(), List.of(), List.of());
+        }
+        List<Document> total = result.getList("total", Document.class, List.of());
+        return new VehicleFacetsDto(
+                total.isEmpty() ? 0 : countOf(total.get(0)),
+                counts(result, "makes"),
+                counts(result, "fuelTypes"),
+                counts(result, "transmissions"),
+                counts(result, "years"),
+                priceBands(result));
+    }
+
+    // The text filters match case-insensitively, so "Toyota" and "toyota" are counted as one value,
+    // labelled with the spelling of one of the vehicles in it
+    private static AggregationOperation[] textCounts(Criteria filter, String field) {
+        return new AggregationOperation[] {
+                match(filter),
+                project().and(StringOperators.valueOf(field).toLower()).as("key").and(field).as("label"),
+                group("key").first("label").as("label").count().as("count"),
+                sort(Sort.Direction.DESC, "count")
+        };
+    }
+
+    private static Criteria excluding(VehicleSearchDto facetFilters, Consumer<VehicleSearchDto> clearOwnFilter) {
+        return VehicleQueryBuilder.toCriteria(copyOf(facetFilters, clearOwnFilter));
+    }
+
+    private static VehicleSearchDto copyOf(VehicleSearchDto source, Consumer<VehicleSearchDto> change) {
+        VehicleSearchDto copy = new VehicleSearchDto();
+        BeanUtils.copyProperties(source, copy);
+        change.accept(copy);
+        return copy;
+    }
+
+    // Vehicles missing the field are left out rather than reported under a null value.
+    // Text facets carry their display value in "label", the year facet in "_id"
+    private static List<FacetCountDto> counts(Document result, String facet) {
+        List<FacetCountDto> counts = new ArrayList<>();
+        for (Document row : result.getList(facet, Document.class, List.of())) {
+            Object value = row.containsKey("label") ? row.get("label") : row.get("_id");
+            if (value != null && !value.toString().isBlank()) {
+                counts.add(new FacetCountDto(value.toString(), countOf(row)));
+            }
+        }
+        return counts;
+    }
+
+    // Bands are always listed, empty ones with a zero count, so the sidebar layout stays stable
+    private static List<PriceBandDto> priceBands(Document result) {
+        List<PriceBandDto> bands = new ArrayList<>();
+        for (int i = 0; i < PRICE_BANDS.length; i++) {
+            Double max = i + 1 < PRICE_BANDS.length ? PRICE_BANDS[i + 1] : null;
+            bands.add(new PriceBandDto(PRICE_BANDS[i], max, 0));
+        }
+        for (Document row : result.getList("priceBands", Document.class, List.of())) {
+            if (row.get("_id") instanceof Number lowerBound) {
+                for (PriceBandDto band : bands) {
+                    if (band.getMin() == lowerBound.doubleValue()) {
+                        band.setCount(countOf(row));
+                    }
+                }
+            }
+        }
+        return bands;
+    }
+
+    private static long countOf(Document row) {
+        Object count = row.get("count");
+        return count instanceof Number number ? number.longValue() : 0;
+    }
+}
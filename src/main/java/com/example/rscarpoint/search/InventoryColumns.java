@@ -0,0 +1,420 @@
+package com.example.rscarpoint.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+
+/**
+ * Immutable column-oriented copy of the vehicle cards. Price, year and mileage are primitive arrays;
+ * make, model, fuel type, transmission and status are dictionary-encoded with one bitmap per distinct
+ * (lower-cased) value. A search ORs the bitmaps of the dictionary values that match each text filter,
+ * ANDs those together, and only then checks the numeric ranges of the surviving rows, so no per-row
+ * strings are built. Semantics follow {@link com.example.rscarpoint.repository.VehicleQueryBuilder}:
+ * case-insensitive "contains" for the text fields, case-insensitive equality for status.
+ *
+ * <p>Every array is split into chunks of {@value #CHUNK_ROWS} rows, and a bitmap chunk without any
+ * row is left null. Single-row changes return a new instance that copies only the chunk holding the
+ * row plus the small arrays of chunk references, so a write costs O(chunk + distinct values) rather
+ * than O(rows). Deleted rows are only cleared from the live bitmap; a full rebuild compacts them away.
+ */
+public final class InventoryColumns {
+
+    static final int CHUNK_ROWS = 4096;
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_WORDS = CHUNK_ROWS >>> 6;
+
+    private final int size;
+    private final VehicleCardDto[][] rows;
+    private final long[][] live;
+    private final double[][] price;
+    private final int[][] year;
+    private final int[][] mileage;
+    private final Column make;
+    private final Column model;
+    private final Column fuelType;
+    private final Column transmission;
+    private final Column status;
+
+    private InventoryColumns(int size, VehicleCardDto[][] rows, long[][] live, double[][] price, int[][] year,
+                             int[][] mileage, Column make, Column model, Column fuelType, Column transmission,
+                             Column status) {
+        this.size = size;
+        this.rows = rows;
+        this.live = live;
+        this.price = price;
+        this.year = year;
+        this.mileage = mileage;
+        this.make = make;
+        this.model = model;
+        this.fuelType = fuelType;
+        this.transmission = transmission;
+        this.status = status;
+    }
+
+    public static InventoryColumns of(List<VehicleCardDto> cards) {
+        int size = cards.size();
+        int chunks = Math.max(1, (size + CHUNK_ROWS - 1) >>> CHUNK_SHIFT);
+        VehicleCardDto[][] rows = new VehicleCardDto[chunks][CHUNK_ROWS];
+        long[][] live = new long[chunks][CHUNK_WORDS];
+        double[][] price = new double[chunks][CHUNK_ROWS];
+        int[][] year = new int[chunks][CHUNK_ROWS];
+        int[][] mileage = new int[chunks][CHUNK_ROWS];
+        ColumnBuilder make = new ColumnBuilder(chunks);
+        ColumnBuilder model = new ColumnBuilder(chunks);
+        ColumnBuilder fuelType = new ColumnBuilder(chunks);
+        ColumnBuilder transmission = new ColumnBuilder(chunks);
+        ColumnBuilder status = new ColumnBuilder(chunks);
+        for (int row = 0; row < size; row++) {
+            VehicleCardDto card = cards.get(row);
+            int chunk = row >>> CHUNK_SHIFT;
+            int offset = row & (CHUNK_ROWS - 1);
+            rows[chunk][offset] = card;
+            set(live[chunk], offset);
+            price[chunk][offset] = card.getPrice();
+            year[chunk][offset] = card.getYear();
+            mileage[chunk][offset] = card.getMileage();
+            make.add(row, card.getMake());
+            model.add(row, card.getModel());
+            fuelType.add(row, card.getFuelType());
+            transmission.add(row, card.getTransmission());
+            status.add(row, card.getStatus());
+        }
+        return new InventoryColumns(size, rows, live, price, year, mileage, make.build(), model.build(),
+                fuelType.build(), transmission.build(), status.build());
+    }
+
+    // Rows in use, deleted ones included; the row number of a card is its position in the original list
+    public int size() {
+        return size;
+    }
+
+    // Works one chunk at a time, so the bitmaps being combined stay in cache; the result bitmap and the
+    // union scratch are a bit per row, small enough to allocate per search
+    public List<VehicleCardDto> filter(VehicleSearchDto searchDto) {
+        int[][] codes = new int[5][];
+        if (searchDto != null) {
+            codes[0] = make.matching(searchDto.getMake(), false);
+            codes[1] = model.matching(searchDto.getModel(), false);
+            codes[2] = fuelType.matching(searchDto.getFuelType(), false);
+            codes[3] = transmission.matching(searchDto.getTransmission(), false);
+            codes[4] = status.matching(searchDto.getStatus(), true);
+        }
+        Column[] columns = {make, model, fuelType, transmission, status};
+        Ranges ranges = searchDto != null ? Ranges.of(searchDto) : null;
+
+        long[] result = new long[rows.length * CHUNK_WORDS];
+        long[] union = new long[CHUNK_WORDS];
+        int count = 0;
+        for (int chunk = 0; chunk < rows.length; chunk++) {
+            int base = chunk * CHUNK_WORDS;
+            System.arraycopy(live[chunk], 0, result, base, CHUNK_WORDS);
+            boolean empty = false;
+            for (int c = 0; c < columns.length && !empty; c++) {
+                if (codes[c] != null) {
+                    empty = !columns[c].restrict(result, base, union, codes[c], chunk);
+                }
+            }
+            if (empty) {
+                continue;
+            }
+            if (ranges != null) {
+                ranges.restrict(result, base, price[chunk], year[chunk], mileage[chunk]);
+            }
+            for (int w = base; w < base + CHUNK_WORDS; w++) {
+                count += Long.bitCount(result[w]);
+            }
+        }
+        return collect(result, count);
+    }
+
+    private List<VehicleCardDto> collect(long[] result, int count) {
+        List<VehicleCardDto> matches = new ArrayList<>(count);
+        for (int chunk = 0; chunk < rows.length; chunk++) {
+            VehicleCardDto[] chunkRows = rows[chunk];
+            int base = chunk * CHUNK_WORDS;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                for (long bits = result[base + w]; bits != 0; bits &= bits - 1) {
+                    matches.add(chunkRows[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Copy with the card in the given row replaced (row < size) or appended (row == size)
+    public InventoryColumns withRow(int row, VehicleCardDto card) {
+        if (row < 0 || row > size) {
+            throw new IndexOutOfBoundsException("Row " + row + " outside " + size + " rows");
+        }
+        int chunk = row >>> CHUNK_SHIFT;
+        int offset = row & (CHUNK_ROWS - 1);
+        boolean newChunk = chunk == rows.length;
+
+        VehicleCardDto[][] newRows = withChunk(rows, chunk, newChunk ? new VehicleCardDto[CHUNK_ROWS] : null);
+        newRows[chunk][offset] = card;
+        long[][] newLive = withChunk(live, chunk, newChunk ? new long[CHUNK_WORDS] : null);
+        set(newLive[chunk], offset);
+        double[][] newPrice = withChunk(price, chunk, newChunk ? new double[CHUNK_ROWS] : null);
+        newPrice[chunk][offset] = card.getPrice();
+        int[][] newYear = withChunk(year, chunk, newChunk ? new int[CHUNK_ROWS] : null);
+        newYear[chunk][offset] = card.getYear();
+        int[][] newMileage = withChunk(mileage, chunk, newChunk ? new int[CHUNK_ROWS] : null);
+        newMileage[chunk][offset] = card.getMileage();
+        return new InventoryColumns(Math.max(size, row + 1), newRows, newLive, newPrice, newYear, newMileage,
+                make.with(row, card.getMake()),
+                model.with(row, card.getModel()),
+                fuelType.with(row, card.getFuelType()),
+                transmission.with(row, card.getTransmission()),
+                status.with(row, card.getStatus()));
+    }
+
+    public InventoryColumns withoutRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " outside " + size + " rows");
+        }
+        int chunk = row >>> CHUNK_SHIFT;
+        int offset = row & (CHUNK_ROWS - 1);
+        long[][] newLive = withChunk(live, chunk, null);
+        newLive[chunk][offset >>> 6] &= ~(1L << offset);
+        VehicleCardDto[][] newRows = withChunk(rows, chunk, null);
+        newRows[chunk][offset] = null;
+        return new InventoryColumns(size, newRows, newLive, price, year, mileage,
+                make.with(row, null),
+                model.with(row, null),
+                fuelType.with(row, null),
+                transmission.with(row, null),
+                status.with(row, null));
+    }
+
+    // Copy of the chunk array in which the given chunk is a private copy (or the supplied new chunk, appended)
+    private static <T> T[] withChunk(T[] chunks, int chunk, T appended) {
+        T[] copy = Arrays.copyOf(chunks, Math.max(chunks.length, chunk + 1));
+        copy[chunk] = appended != null ? appended : cloneChunk(chunks[chunk]);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cloneChunk(T chunk) {
+        if (chunk instanceof long[] words) {
+            return (T) words.clone();
+        }
+        if (chunk instanceof int[] ints) {
+            return (T) ints.clone();
+        }
+        if (chunk instanceof double[] doubles) {
+            return (T) doubles.clone();
+        }
+        return (T) ((Object[]) chunk).clone();
+    }
+
+    private static void set(long[] bitmap, int bit) {
+        bitmap[bit >>> 6] |= 1L << bit;
+    }
+
+    private static String key(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    // The numeric filters, unboxed once per search rather than once per row
+    private static final class Ranges {
+        private final double lowPrice;
+        private final double highPrice;
+        private final int lowYear;
+        private final int highYear;
+        private final int lowMileage;
+        private final int highMileage;
+
+        private Ranges(double lowPrice, double highPrice, int lowYear, int highYear, int lowMileage, int highMileage) {
+            this.lowPrice = lowPrice;
+            this.highPrice = highPrice;
+            this.lowYear = lowYear;
+            this.highYear = highYear;
+            this.lowMileage = lowMileage;
+            this.highMileage = highMileage;
+        }
+
+        // Null when no range is set
+        private static Ranges of(VehicleSearchDto searchDto) {
+            Double minPrice = searchDto.getMinPrice();
+            Double maxPrice = searchDto.getMaxPrice();
+            Integer minYear = searchDto.getMinYear();
+            Integer maxYear = searchDto.getMaxYear();
+            Integer minMileage = searchDto.getMinMileage();
+            Integer maxMileage = searchDto.getMaxMileage();
+            if (minPrice == null && maxPrice == null && minYear == null && maxYear == null
+                    && minMileage == null && maxMileage == null) {
+                return null;
+            }
+            return new Ranges(minPrice != null ? minPrice : Double.NEGATIVE_INFINITY,
+                    maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY,
+                    minYear != null ? minYear : Integer.MIN_VALUE,
+                    maxYear != null ? maxYear : Integer.MAX_VALUE,
+                    minMileage != null ? minMileage : Integer.MIN_VALUE,
+                    maxMileage != null ? maxMileage : Integer.MAX_VALUE);
+        }
+
+        private void restrict(long[] result, int base, double[] price, int[] year, int[] mileage) {
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                long kept = result[base + w];
+                for (long bits = kept; bits != 0; bits &= bits - 1) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    int offset = (w << 6) + bit;
+                    if (price[offset] < lowPrice || price[offset] > highPrice
+                            || year[offset] < lowYear || year[offset] > highYear
+                            || mileage[offset] < lowMileage || mileage[offset] > highMileage) {
+                        kept &= ~(1L << bit);
+                    }
+                }
+                result[base + w] = kept;
+            }
+        }
+    }
+
+    // One dictionary-encoded field: distinct lower-cased values, each row's code (-1 when unset, chunked)
+    // and per code one bitmap chunk per row chunk, null where the chunk holds no row with that value
+    private static final class Column {
+        private final String[] values;
+        private final int[][] codes;
+        private final long[][][] bitmaps;
+
+        private Column(String[] values, int[][] codes, long[][][] bitmaps) {
+            this.values = values;
+            this.codes = codes;
+            this.bitmaps = bitmaps;
+        }
+
+        // Codes whose value matches the filter, or null when the filter is blank
+        private int[] matching(String filter, boolean exact) {
+            if (!hasText(filter)) {
+                return null;
+            }
+            String needle = key(filter.trim());
+            int[] matches = new int[values.length];
+            int count = 0;
+            for (int code = 0; code < values.length; code++) {
+                if (exact ? values[code].equals(needle) : values[code].contains(needle)) {
+                    matches[count++] = code;
+                }
+            }
+            return Arrays.copyOf(matches, count);
+        }
+
+        // ANDs the union of the matching codes' bitmaps into the chunk's words of result; false when none is left
+        private boolean restrict(long[] result, int base, long[] union, int[] matching, int chunk) {
+            Arrays.fill(union, 0L);
+            for (int code : matching) {
+                long[][] chunks = bitmaps[code];
+                long[] bitmap = chunk < chunks.length ? chunks[chunk] : null;
+                if (bitmap != null) {
+                    for (int w = 0; w < CHUNK_WORDS; w++) {
+                        union[w] |= bitmap[w];
+                    }
+                }
+            }
+            long any = 0;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                result[base + w] &= union[w];
+                any |= result[base + w];
+            }
+            return any != 0;
+        }
+
+        // Copies the row's code chunk and the (at most two) bitmap chunks the row moves between
+        private Column with(int row, String value) {
+            int chunk = row >>> CHUNK_SHIFT;
+            int offset = row & (CHUNK_ROWS - 1);
+            String key = key(value);
+            int oldCode = chunk < codes.length ? codes[chunk][offset] : -1;
+            int newCode = key == null ? -1 : indexOf(key);
+            if (oldCode == newCode && (key == null || newCode >= 0) && chunk < codes.length) {
+                return this;
+            }
+            String[] newValues = values;
+            long[][][] newBitmaps = bitmaps.clone();
+            int[][] newCodes = withChunk(codes, chunk, chunk < codes.length ? null : emptyCodes());
+            if (oldCode >= 0) {
+                long[][] chunks = newBitmaps[oldCode] = bitmaps[oldCode].clone();
+                chunks[chunk] = chunks[chunk].clone();
+                chunks[chunk][offset >>> 6] &= ~(1L << offset);
+            }
+            if (key != null) {
+                if (newCode < 0) {
+                    newCode = values.length;
+                    newValues = Arrays.copyOf(values, newCode + 1);
+                    newValues[newCode] = key;
+                    newBitmaps = Arrays.copyOf(newBitmaps, newCode + 1);
+                    newBitmaps[newCode] = new long[0][];
+                }
+                long[][] chunks = newBitmaps[newCode] = Arrays.copyOf(newBitmaps[newCode],
+                        Math.max(newBitmaps[newCode].length, chunk + 1));
+                chunks[chunk] = chunks[chunk] == null ? new long[CHUNK_WORDS] : chunks[chunk].clone();
+                set(chunks[chunk], offset);
+            }
+            newCodes[chunk][offset] = newCode;
+            return new Column(newValues, newCodes, newBitmaps);
+        }
+
+        private int indexOf(String key) {
+            for (int code = 0; code < values.length; code++) {
+                if (values[code].equals(key)) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+
+        private static int[] emptyCodes() {
+            int[] codes = new int[CHUNK_ROWS];
+            Arrays.fill(codes, -1);
+            return codes;
+        }
+    }
+
+    private static final class ColumnBuilder {
+        private final Map<String, Integer> codeByValue = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<long[][]> bitmaps = new ArrayList<>();
+        private final int[][] codes;
+
+        private ColumnBuilder(int chunks) {
+            this.codes = new int[chunks][];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                codes[chunk] = Column.emptyCodes();
+            }
+        }
+
+        private void add(int row, String value) {
+            String key = key(value);
+            if (key == null) {
+                return;
+            }
+            int code = codeByValue.computeIfAbsent(key, k -> {
+                values.add(k);
+                bitmaps.add(new long[codes.length][]);
+                return values.size() - 1;
+            });
+            int chunk = row >>> CHUNK_SHIFT;
+            int offset = row & (CHUNK_ROWS - 1);
+            codes[chunk][offset] = code;
+            long[][] chunks = bitmaps.get(code);
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new long[CHUNK_WORDS];
+            }
+            set(chunks[chunk], offset);
+        }
+
+        private Column build() {
+            return new Column(values.toArray(new String[0]), codes, bitmaps.toArray(new long[0][][]));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.rscarpoint.search;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.event.VehicleChangedEvent;
+import com.example.rscarpoint.model.Vehicle;
+
+// Serves card searches from InventoryColumns. Loaded at startup, patched one row per VehicleChangedEvent
+// and reloaded on bulk changes and every refresh-ms, which also picks up writes made on other nodes.
+// Until a load succeeds, or after an update fails, search() is empty and callers fall back to MongoDB.
+@Component
+public class InventorySnapshot {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${rscarpoint.inventory.snapshot.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Guarded by writeLock: row number of each vehicle in the current columns
+    private final Map<String, Integer> rowById = new HashMap<>();
+    private volatile InventoryColumns columns;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuildQuietly();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rscarpoint.inventory.snapshot.refresh-ms:300000}",
+               initialDelayString = "${rscarpoint.inventory.snapshot.refresh-ms:300000}")
+    public void refresh() {
+        if (enabled) {
+            rebuildQuietly();
+        }
+    }
+
+    @EventListener
+    public void onVehicleChanged(VehicleChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isBulk()) {
+            rebuildQuietly();
+            return;
+        }
+        try {
+            update(event.getVehicleId());
+        } catch (Exception e) {
+            // Serving a stale row would be wrong, so searches go to MongoDB until the next rebuild
+            columns = null;
+            System.err.println("Error updating inventory snapshot, disabled until the next refresh: " + e.getMessage());
+        }
+    }
+
+    public Optional<List<VehicleCardDto>> search(VehicleSearchDto searchDto) {
+        InventoryColumns current = columns;
+        return current == null ? Optional.empty() : Optional.of(current.filter(searchDto));
+    }
+
+    public int rebuild() {
+        writeLock.lock();
+        try {
+            List<VehicleCardDto> cards = new ArrayList<>();
+            try (Stream<Vehicle> vehicles = mongoTemplate.stream(cardFieldsOf(new Criteria()), Vehicle.class)) {
+                vehicles.forEach(vehicle -> cards.add(VehicleCardDto.from(vehicle)));
+            }
+            rowById.clear();
+            for (int row = 0; row < cards.size(); row++) {
+                rowById.put(cards.get(row).getId(), row);
+            }
+            columns = InventoryColumns.of(cards);
+            return cards.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            columns = null;
+            System.err.println("Error loading inventory snapshot: " + e.getMessage());
+        }
+    }
+
+    // The read happens under the lock so two quick writes to one vehicle cannot be applied out of order.
+    // Patching copies one chunk of each column, see InventoryColumns, so reservations can take this path too.
+    private void update(String id) {
+        writeLock.lock();
+        try {
+            InventoryColumns current = columns;
+            if (current == null) {
+                return;
+            }
+            Vehicle vehicle = mongoTemplate.findOne(cardFieldsOf(where("_id").is(id)), Vehicle.class);
+            Integer row = rowById.get(id);
+            if (vehicle == null) {
+                if (row != null) {
+                    rowById.remove(id);
+                    columns = current.withoutRow(row);
+                }
+            } else if (row != null) {
+                columns = current.withRow(row, VehicleCardDto.from(vehicle));
+            } else {
+                rowById.put(id, current.size());
+                columns = current.withRow(current.size(), VehicleCardDto.from(vehicle));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Query cardFieldsOf(Criteria criteria) {
+        Query query = query(criteria);
+        query.fields().include(VehicleCardDto.FIELDS);
+        return query;
+    }
+}
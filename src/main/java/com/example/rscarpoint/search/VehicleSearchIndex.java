@@ -0,0 +1,277 @@
+package com.example.rscarpoint.search;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.event.VehicleChangedEvent;
+import com.example.rscarpoint.model.Vehicle;
+
+import jakarta.annotation.PreDestroy;
+
+// In-memory Lucene index over the free-text vehicle fields. MongoDB stays the source of truth: the index
+// is rebuilt from it at startup, on bulk changes and every refresh-ms (which also picks up writes made on
+// other nodes), and every other vehicle write reindexes one document through VehicleChangedEvent.
+// Searches run on the last refreshed point-in-time view and never block writes.
+@Component
+public class VehicleSearchIndex {
+
+    private static final String ID = "id";
+    // Searched fields and their relevance boosts
+    private static final Map<String, Float> FIELDS = new LinkedHashMap<>();
+    static {
+        FIELDS.put("make", 3f);
+        FIELDS.put("model", 3f);
+        FIELDS.put("fuelType", 1.5f);
+        FIELDS.put("transmission", 1.5f);
+        FIELDS.put("description", 1f);
+    }
+    // Exact terms outrank fuzzy matches of the same field
+    private static final float EXACT_BOOST = 2f;
+    private static final int MAX_QUERY_TERMS = 10;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Replaced as a whole by rebuild(); written under writeLock
+    private volatile LiveIndex index;
+
+    public VehicleSearchIndex() throws IOException {
+        index = newIndex();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            System.out.println("Indexed " + rebuild() + " vehicles for full-text search.");
+        } catch (Exception e) {
+            System.err.println("Error building vehicle search index: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rscarpoint.search.refresh-ms:300000}",
+               initialDelayString = "${rscarpoint.search.refresh-ms:300000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("Error refreshing vehicle search index: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onVehicleChanged(VehicleChangedEvent event) {
+        // Status is not indexed
+        if (event.isStatusOnly()) {
+            return;
+        }
+        try {
+            if (event.isBulk()) {
+                rebuild();
+            } else {
+                reindex(event.getVehicleId());
+            }
+        } catch (Exception e) {
+            System.err.println("Error updating vehicle search index: " + e.getMessage());
+        }
+    }
+
+    // Builds a fresh index from the current vehicles collection and swaps it in once complete. Searches
+    // keep using the old one meanwhile, and keep it if the load fails.
+    public int rebuild() throws IOException {
+        writeLock.lock();
+        try {
+            LiveIndex fresh = newIndex();
+            int indexed = 0;
+            try (Stream<Vehicle> vehicles = mongoTemplate.stream(textFieldsOf(new Criteria()), Vehicle.class)) {
+                for (Vehicle vehicle : (Iterable<Vehicle>) vehicles::iterator) {
+                    fresh.writer().addDocument(toDocument(vehicle));
+                    indexed++;
+                }
+                fresh.searcherManager().maybeRefreshBlocking();
+            } catch (RuntimeException | IOException e) {
+                fresh.close();
+                throw e;
+            }
+            LiveIndex previous = index;
+            index = fresh;
+            previous.close();
+            return indexed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Ids of the best matching vehicles, most relevant first
+    public List<String> search(String text, int limit) throws IOException {
+        Query query = buildQuery(text);
+        if (query == null) {
+            return List.of();
+        }
+        LiveIndex current = index;
+        IndexSearcher searcher;
+        try {
+            searcher = current.searcherManager().acquire();
+        } catch (AlreadyClosedException e) {
+            // A rebuild swapped the index in between; searchers already acquired stay usable
+            current = index;
+            searcher = current.searcherManager().acquire();
+        }
+        try {
+            StoredFields storedFields = searcher.storedFields();
+            List<String> ids = new ArrayList<>();
+            for (ScoreDoc hit : searcher.search(query, limit).scoreDocs) {
+                ids.add(storedFields.document(hit.doc).get(ID));
+            }
+            return ids;
+        } finally {
+            current.searcherManager().release(searcher);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        index.close();
+    }
+
+    // The read happens under the lock so two quick writes to one vehicle cannot be indexed out of order
+    private void reindex(String id) throws IOException {
+        writeLock.lock();
+        try {
+            LiveIndex current = index;
+            Vehicle vehicle = mongoTemplate.findOne(textFieldsOf(where("_id").is(id)), Vehicle.class);
+            if (vehicle == null) {
+                current.writer().deleteDocuments(new Term(ID, id));
+            } else {
+                current.writer().updateDocument(new Term(ID, id), toDocument(vehicle));
+            }
+            current.searcherManager().maybeRefreshBlocking();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Every term must match some field, exactly or within the typo allowance for its length
+    private Query buildQuery(String text) throws IOException {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder allTerms = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            int maxEdits = maxEdits(term);
+            for (Map.Entry<String, Float> field : FIELDS.entrySet()) {
+                Term fieldTerm = new Term(field.getKey(), term);
+                anyField.add(new BoostQuery(new TermQuery(fieldTerm), field.getValue() * EXACT_BOOST),
+                        BooleanClause.Occur.SHOULD);
+                if (maxEdits > 0) {
+                    // The first letter has to be right, which keeps the fuzzy expansion small
+                    anyField.add(new BoostQuery(new FuzzyQuery(fieldTerm, maxEdits, 1), field.getValue()),
+                            BooleanClause.Occur.SHOULD);
+                }
+            }
+            allTerms.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        return allTerms.build();
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        try (TokenStream tokens = analyzer.tokenStream("description", text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken() && terms.size() < MAX_QUERY_TERMS) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        }
+        return terms;
+    }
+
+    // Same allowance as Elasticsearch's AUTO fuzziness: none up to 2 characters, one edit up to 5, then two
+    private static int maxEdits(String term) {
+        return term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2;
+    }
+
+    // Mongo query loading only the indexed fields (the name clashes with Lucene's Query)
+    private static org.springframework.data.mongodb.core.query.Query textFieldsOf(Criteria criteria) {
+        org.springframework.data.mongodb.core.query.Query query = query(criteria);
+        query.fields().include(FIELDS.keySet().toArray(new String[0]));
+        return query;
+    }
+
+    private LiveIndex newIndex() throws IOException {
+        IndexWriter writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        return new LiveIndex(writer, new SearcherManager(writer, null));
+    }
+
+    private static Document toDocument(Vehicle vehicle) {
+        Document document = new Document();
+        document.add(new StringField(ID, vehicle.getId(), Field.Store.YES));
+        addText(document, "make", vehicle.getMake());
+        addText(document, "model", vehicle.getModel());
+        addText(document, "fuelType", vehicle.getFuelType());
+        addText(document, "transmission", vehicle.getTransmission());
+        addText(document, "description", vehicle.getDescription());
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    // One generation of the index: the writer for single-document updates and the searchers over it
+    private record LiveIndex(IndexWriter writer, SearcherManager searcherManager) {
+        // Searchers still held on this generation keep working; the in-memory directory goes with them
+        private void close() throws IOException {
+            searcherManager.close();
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.rscarpoint.search;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.dto.SuggestionDto;
+import com.example.rscarpoint.event.VehicleChangedEvent;
+import com.example.rscarpoint.model.Vehicle;
+
+// Make / make model / make model engine completions with vehicle counts, answered from memory.
+// Counts are kept per completion and adjusted by each VehicleChangedEvent; the sorted prefix arrays
+// are then re-derived from the (few thousand at most) distinct completions and published as one
+// immutable snapshot, so lookups are a lock-free binary search and never touch MongoDB. A full rebuild
+// runs at startup, on bulk changes and every refresh-ms, which also picks up writes made on other nodes.
+@Component
+public class VehicleSuggestIndex {
+
+    private static final String MAKE = "make";
+    private static final String MODEL = "model";
+    private static final String VARIANT = "variant";
+
+    private static final String[] FIELDS = {"make", "model", "engineCapacity"};
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // A ReentrantLock rather than synchronized: the holder blocks on MongoDB, which would pin a virtual thread's carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Guarded by writeLock: the completions each indexed vehicle contributes, and the vehicle count per completion
+    private Map<String, List<Completion>> byVehicle = new HashMap<>();
+    private Map<Completion, Integer> counts = new HashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            System.out.println("Indexed " + rebuild() + " vehicles for suggestions.");
+        } catch (Exception e) {
+            System.err.println("Error building vehicle suggest index: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rscarpoint.search.refresh-ms:300000}",
+               initialDelayString = "${rscarpoint.search.refresh-ms:300000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("Error refreshing vehicle suggest index: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onVehicleChanged(VehicleChangedEvent event) {
+        // Completions do not depend on status
+        if (event.isStatusOnly()) {
+            return;
+        }
+        try {
+            if (event.isBulk()) {
+                rebuild();
+            } else {
+                reindex(event.getVehicleId());
+            }
+        } catch (Exception e) {
+            System.err.println("Error updating vehicle suggest index: " + e.getMessage());
+        }
+    }
+
+    // Loads into new maps and swaps them in only once complete, so a failed load keeps the current counts
+    public int rebuild() {
+        writeLock.lock();
+        try {
+            Map<String, List<Completion>> freshByVehicle = new HashMap<>();
+            Map<Completion, Integer> freshCounts = new HashMap<>();
+            int indexed = 0;
+            try (Stream<Vehicle> vehicles = mongoTemplate.stream(suggestFieldsOf(new Criteria()), Vehicle.class)) {
+                for (Vehicle vehicle : (Iterable<Vehicle>) vehicles::iterator) {
+                    add(freshByVehicle, freshCounts, vehicle);
+                    indexed++;
+                }
+            }
+            byVehicle = freshByVehicle;
+            counts = freshCounts;
+            publish();
+            return indexed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Completions whose text, or any word of it, starts with the typed prefix; most vehicles first
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        BitSet matches = new BitSet(current.suggestions.length);
+        for (int i = current.lowerBound(key); i < current.keys.length && current.keys[i].startsWith(key); i++) {
+            matches.set(current.targets[i]);
+        }
+        // Completions are numbered in rank order, so the lowest set bits are the best matches
+        List<SuggestionDto> suggestions = new ArrayList<>();
+        for (int i = matches.nextSetBit(0); i >= 0 && suggestions.size() < limit; i = matches.nextSetBit(i + 1)) {
+            suggestions.add(current.suggestions[i]);
+        }
+        return suggestions;
+    }
+
+    // The read happens under the lock so two quick writes to one vehicle cannot be applied out of order
+    private void reindex(String id) {
+        writeLock.lock();
+        try {
+            Vehicle vehicle = mongoTemplate.findOne(suggestFieldsOf(where("_id").is(id)), Vehicle.class);
+            remove(id);
+            if (vehicle != null) {
+                add(byVehicle, counts, vehicle);
+            }
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void add(Map<String, List<Completion>> byVehicle, Map<Completion, Integer> counts,
+                            Vehicle vehicle) {
+        List<Completion> completions = completionsOf(vehicle);
+        if (!completions.isEmpty()) {
+            byVehicle.put(vehicle.getId(), completions);
+            completions.forEach(completion -> counts.merge(completion, 1, Integer::sum));
+        }
+    }
+
+    private void remove(String id) {
+        List<Completion> previous = byVehicle.remove(id);
+        if (previous != null) {
+            previous.forEach(completion -> counts.computeIfPresent(completion, (c, n) -> n > 1 ? n - 1 : null));
+        }
+    }
+
+    private void publish() {
+        List<Map.Entry<Completion, Integer>> ranked = new ArrayList<>(counts.entrySet());
+        ranked.sort(Comparator.<Map.Entry<Completion, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                .thenComparing(entry -> entry.getKey().key));
+        SuggestionDto[] suggestions = new SuggestionDto[ranked.size()];
+        List<PrefixKey> prefixKeys = new ArrayList<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            Completion completion = ranked.get(i).getKey();
+            suggestions[i] = new SuggestionDto(completion.text, completion.type, ranked.get(i).getValue());
+            // Every word start is a key, so "corolla" finds "Toyota Corolla" as well as "toy" does
+            String[] words = completion.key.split(" ");
+            for (int w = 0; w < words.length; w++) {
+                prefixKeys.add(new PrefixKey(String.join(" ", Arrays.copyOfRange(words, w, words.length)), i));
+            }
+        }
+        prefixKeys.sort(Comparator.comparing(PrefixKey::key));
+        String[] keys = new String[prefixKeys.size()];
+        int[] targets = new int[prefixKeys.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = prefixKeys.get(i).key();
+            targets[i] = prefixKeys.get(i).target();
+        }
+        snapshot = new Snapshot(keys, targets, suggestions);
+    }
+
+    private static List<Completion> completionsOf(Vehicle vehicle) {
+        List<Completion> completions = new ArrayList<>();
+        String make = trimmed(vehicle.getMake());
+        if (make == null) {
+            return completions;
+        }
+        completions.add(new Completion(MAKE, make));
+        String model = trimmed(vehicle.getModel());
+        if (model != null) {
+            completions.add(new Completion(MODEL, make + " " + model));
+            String engine = trimmed(vehicle.getEngineCapacity());
+            if (engine != null) {
+                completions.add(new Completion(VARIANT, make + " " + model + " " + engine));
+            }
+        }
+        return completions;
+    }
+
+    private static Query suggestFieldsOf(Criteria criteria) {
+        Query query = query(criteria);
+        query.fields().include(FIELDS);
+        return query;
+    }
+
+    private static String trimmed(String value) {
+        return value == null || value.isBlank() ? null : value.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Completions differing only in case are one entry, shown with the casing first indexed
+    private static final class Completion {
+        private final String type;
+        private final String text;
+        private final String key;
+
+        private Completion(String type, String text) {
+            this.type = type;
+            this.text = text;
+            this.key = normalize(text);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Completion completion && key.equals(completion.key) && type.equals(completion.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() * 31 + type.hashCode();
+        }
+    }
+
+    private record PrefixKey(String key, int target) {
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new SuggestionDto[0]);
+
+        private final String[] keys;
+        private final int[] targets;
+        private final SuggestionDto[] suggestions;
+
+        private Snapshot(String[] keys, int[] targets, SuggestionDto[] suggestions) {
+            this.keys = keys;
+            this.targets = targets;
+            this.suggestions = suggestions;
+        }
+
+        // First key not below the given one; keys repeat, so Arrays.binarySearch's arbitrary hit will not do
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
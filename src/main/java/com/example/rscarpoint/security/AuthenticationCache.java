@@ -0,0 +1,75 @@
+package com.example.rscarpoint.security;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.model.User;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+// Parsed token claims keyed by token and UserDetails keyed by email, so an authenticated request
+// normally costs neither a signature check nor a users lookup; see UserController for invalidation
+@Component
+public class AuthenticationCache {
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    private final ExpiringCache<String, Claims> claimsByToken;
+    private final ExpiringCache<String, UserDetails> usersByEmail;
+
+    public AuthenticationCache(@Value("${rscarpoint.security.auth-cache.max-entries:10000}") int maxEntries,
+                               @Value("${rscarpoint.security.auth-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.claimsByToken = new ExpiringCache<>(maxEntries, ttlSeconds * 1000);
+        this.usersByEmail = new ExpiringCache<>(maxEntries, ttlSeconds * 1000);
+    }
+
+    // Verified claims of the token, or null when it is malformed, forged or expired
+    public Claims getClaims(String token) {
+        Claims claims = claimsByToken.get(token);
+        if (claims != null) {
+            return claims;
+        }
+        try {
+            claims = jwtUtil.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        claimsByToken.put(token, claims, claims.getExpiration().getTime());
+        return claims;
+    }
+
+    // Throws UsernameNotFoundException like the underlying service; misses are not cached
+    public UserDetails getUserDetails(String email) {
+        String key = key(email);
+        UserDetails userDetails = usersByEmail.get(key);
+        if (userDetails == null) {
+            userDetails = userDetailsService.loadUserByUsername(email);
+            usersByEmail.put(key, userDetails);
+        }
+        return userDetails;
+    }
+
+    // Call after a user's email, role, status or password changes, or the user is deleted
+    public void evictUser(String email) {
+        if (email == null) {
+            return;
+        }
+        usersByEmail.remove(key(email));
+        claimsByToken.removeIf(claims -> email.equalsIgnoreCase(claims.getSubject()));
+    }
+
+    public void clear() {
+        claimsByToken.clear();
+        usersByEmail.clear();
+    }
+
+    private String key(String email) {
+        return User.normalizeEmail(email);
+    }
+}
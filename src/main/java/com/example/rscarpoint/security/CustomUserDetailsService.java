@@ -1,12 +1,17 @@
 package com.example.rscarpoint.security;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 import java.util.Collections;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -15,40 +20,35 @@ import com.example.rscarpoint.model.User;
 import com.example.rscarpoint.repository.UserRepository;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        System.out.println("Attempting to load user with email: " + email);
-        
-        // First try with findByEmail
-        Optional<User> userOptional = userRepository.findByEmail(email);
-        
-        User user = null;
-        if (userOptional.isPresent()) {
-            user = userOptional.get();
-            System.out.println("User found with findByEmail: " + user.getEmail());
-        } else {
-            System.out.println("User not found with findByEmail, trying manual search...");
-            user = userRepository.findAll().stream()
-                   .filter(u -> email.equalsIgnoreCase(u.getEmail()))
-                   .findFirst()
-                   .orElse(null);
-            
-            if (user != null) {
-                System.out.println("User found via manual search: " + user.getEmail());
-            }
-        }
-        
-        if (user == null) {
-            System.out.println("User not found with email: " + email);
-            throw new UsernameNotFoundException("User not found with email: " + email);
-        }
-        
-        System.out.println("User details - Email: " + user.getEmail() + ", Role: " + user.getRole());
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
         GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().toUpperCase());
         return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), Collections.singleton(authority));
     }
-} 
\ No newline at end of file
+
+    // Called by the authentication provider after a successful login when the stored hash is weaker
+    // than the configured BCrypt strength; only replaces the hash that was just verified
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        replacePasswordHash(userDetails.getUsername(), userDetails.getPassword(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+
+    // Compare-and-set, so a password changed meanwhile is never overwritten
+    public void replacePasswordHash(String email, String currentHash, String newHash) {
+        mongoTemplate.updateFirst(
+                query(where("emailKey").is(User.normalizeEmail(email)).and("password").is(currentHash)),
+                new Update().set("password", newHash),
+                User.class);
+    }
+}
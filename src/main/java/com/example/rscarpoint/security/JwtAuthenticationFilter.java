@@ -6,44 +6,70 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.Claims;
+
 import java.io.IOException;
+import java.util.Collections;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private AuthenticationCache authenticationCache;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception ignored) {}
-        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authHeader.substring(7);
+            Claims claims = authenticationCache.getClaims(jwt);
+            if (claims != null && claims.getSubject() != null && !jwtUtil.isRefreshToken(claims)
+                    && tokenRevocationService.isCurrent(claims.getSubject(), jwtUtil.getTokenVersion(claims))) {
+                UserDetails userDetails = jwtUtil.isStateless() ? fromClaims(claims) : loadUser(claims);
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
             }
         }
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    // Stateless mode: the verified role claim is the authority, no users lookup
+    private UserDetails fromClaims(Claims claims) {
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        if (role == null) {
+            return null;
+        }
+        GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
+        return new User(claims.getSubject(), "", Collections.singleton(authority));
+    }
+
+    private UserDetails loadUser(Claims claims) {
+        try {
+            UserDetails userDetails = authenticationCache.getUserDetails(claims.getSubject());
+            return jwtUtil.validateToken(claims, userDetails.getUsername()) ? userDetails : null;
+        } catch (UsernameNotFoundException e) {
+            // Token of a deleted user: continue unauthenticated
+            return null;
+        }
+    }
+}
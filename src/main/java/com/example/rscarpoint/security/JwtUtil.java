@@ -8,9 +8,13 @@ import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.example.rscarpoint.model.User;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -21,6 +25,22 @@ public class JwtUtil {
     private final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(SECRET_KEY_STRING.getBytes(StandardCharsets.UTF_8));
     private final long EXPIRATION = 1000 * 60 * 60 * 10; // 10 hours
 
+    public static final String ROLE_CLAIM = "role";
+    public static final String VERSION_CLAIM = "ver"; // User.tokenVersion at issue time, see TokenRevocationService
+    public static final String TYPE_CLAIM = "typ";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
+    @Value("${rscarpoint.security.stateless:false}")
+    private boolean stateless;
+    // Stateless access tokens are trusted without a users lookup, so they are kept short-lived
+    @Value("${rscarpoint.security.jwt.stateless-access-token-minutes:15}")
+    private long statelessAccessTokenMinutes;
+    @Value("${rscarpoint.security.jwt.refresh-token-days:7}")
+    private long refreshTokenDays;
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build();
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -34,12 +54,13 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    // Verifies the signature and expiry in one pass; throws JwtException when either fails
+    public Claims parseClaims(String token) {
+        return PARSER.parseClaimsJws(token).getBody();
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseClaims(token);
     }
 
     private Boolean isTokenExpired(String token) {
@@ -48,17 +69,51 @@ public class JwtUtil {
 
     public String generateToken(String username, String role) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("role", role);
-        return createToken(claims, username);
+        claims.put(ROLE_CLAIM, role);
+        return createToken(claims, username, accessTokenLifetime());
+    }
+
+    public String generateAccessToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, user.getRole());
+        claims.put(VERSION_CLAIM, user.getTokenVersion());
+        claims.put(TYPE_CLAIM, ACCESS_TOKEN);
+        return createToken(claims, user.getEmail(), accessTokenLifetime());
+    }
+
+    // Only accepted by POST /api/auth/refresh, never as a bearer token
+    public String generateRefreshToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(VERSION_CLAIM, user.getTokenVersion());
+        claims.put(TYPE_CLAIM, REFRESH_TOKEN);
+        return createToken(claims, user.getEmail(), refreshTokenDays * 24 * 60 * 60 * 1000);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    // Tokens issued before version claims existed count as version 0
+    public long getTokenVersion(Claims claims) {
+        Number version = claims.get(VERSION_CLAIM, Number.class);
+        return version != null ? version.longValue() : 0;
+    }
+
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN.equals(claims.get(TYPE_CLAIM, String.class));
+    }
+
+    private long accessTokenLifetime() {
+        return stateless ? statelessAccessTokenMinutes * 60 * 1000 : EXPIRATION;
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, long lifetimeMillis) {
         try {
             return Jwts.builder()
                     .setClaims(claims)
                     .setSubject(subject)
                     .setIssuedAt(new Date(System.currentTimeMillis()))
-                    .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
+                    .setExpiration(new Date(System.currentTimeMillis() + lifetimeMillis))
                     .signWith(SECRET_KEY)
                     .compact();
         } catch (Exception e) {
@@ -69,7 +124,10 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return validateToken(extractAllClaims(token), username);
+    }
+
+    public Boolean validateToken(Claims claims, String username) {
+        return claims.getSubject().equals(username) && !claims.getExpiration().before(new Date());
     }
 } 
\ No newline at end of file
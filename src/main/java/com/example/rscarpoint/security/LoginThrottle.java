@@ -0,0 +1,92 @@
+package com.example.rscarpoint.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.exception.TooManyRequestsException;
+import com.example.rscarpoint.model.User;
+
+// Fixed-window login limits checked before any password hashing: failed attempts per account
+// and all attempts per client IP. Counters live in bounded ExpiringCaches, so memory stays flat.
+@Component
+public class LoginThrottle {
+    private final int maxAccountFailures;
+    private final long accountWindowMillis;
+    private final int maxIpAttempts;
+    private final long ipWindowMillis;
+
+    private final ExpiringCache<String, Window> accountFailures;
+    private final ExpiringCache<String, Window> ipAttempts;
+
+    public LoginThrottle(@Value("${rscarpoint.security.login-throttle.account-max-failures:5}") int maxAccountFailures,
+                         @Value("${rscarpoint.security.login-throttle.account-window-seconds:900}") long accountWindowSeconds,
+                         @Value("${rscarpoint.security.login-throttle.ip-max-attempts:30}") int maxIpAttempts,
+                         @Value("${rscarpoint.security.login-throttle.ip-window-seconds:60}") long ipWindowSeconds,
+                         @Value("${rscarpoint.security.login-throttle.max-tracked-keys:100000}") int maxTrackedKeys) {
+        this.maxAccountFailures = maxAccountFailures;
+        this.accountWindowMillis = accountWindowSeconds * 1000;
+        this.maxIpAttempts = maxIpAttempts;
+        this.ipWindowMillis = ipWindowSeconds * 1000;
+        this.accountFailures = new ExpiringCache<>(maxTrackedKeys, accountWindowMillis);
+        this.ipAttempts = new ExpiringCache<>(maxTrackedKeys, ipWindowMillis);
+    }
+
+    // Counts the attempt against the IP; throws TooManyRequestsException when either limit is exceeded
+    public void checkAllowed(String email, String clientIp) {
+        if (clientIp != null) {
+            Window window = increment(ipAttempts, clientIp, ipWindowMillis);
+            if (window.count() > maxIpAttempts) {
+                throw new TooManyRequestsException("Too many login attempts, retry later", window.retryAfterSeconds());
+            }
+        }
+        String account = User.normalizeEmail(email);
+        Window failures = account != null ? accountFailures.get(account) : null;
+        if (failures != null && failures.count() >= maxAccountFailures) {
+            throw new TooManyRequestsException("Too many failed logins for this account, retry later",
+                    failures.retryAfterSeconds());
+        }
+    }
+
+    public void recordFailure(String email) {
+        String account = User.normalizeEmail(email);
+        if (account != null) {
+            increment(accountFailures, account, accountWindowMillis);
+        }
+    }
+
+    public void recordSuccess(String email) {
+        String account = User.normalizeEmail(email);
+        if (account != null) {
+            accountFailures.remove(account);
+        }
+    }
+
+    private Window increment(ExpiringCache<String, Window> counters, String key, long windowMillis) {
+        Window window = counters.get(key);
+        if (window == null) {
+            window = new Window(System.currentTimeMillis() + windowMillis);
+            counters.put(key, window, window.resetsAt);
+        }
+        window.attempts.incrementAndGet();
+        return window;
+    }
+
+    private static final class Window {
+        private final long resetsAt;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private Window(long resetsAt) {
+            this.resetsAt = resetsAt;
+        }
+
+        private int count() {
+            return attempts.get();
+        }
+
+        private long retryAfterSeconds() {
+            return Math.max(1, (resetsAt - System.currentTimeMillis() + 999) / 1000);
+        }
+    }
+}
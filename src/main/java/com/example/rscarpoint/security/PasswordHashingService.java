@@ -0,0 +1,108 @@
+package com.example.rscarpoint.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.exception.TooManyRequestsException;
+import com.example.rscarpoint.model.User;
+
+import jakarta.annotation.PreDestroy;
+
+// Runs BCrypt work on a small dedicated pool with a bounded queue. When the queue is full the caller
+// gets a TooManyRequestsException immediately, so login bursts cannot tie up the Tomcat workers.
+@Service
+public class PasswordHashingService {
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Value("${rscarpoint.security.password-hashing.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHashingService(@Value("${rscarpoint.security.password-hashing.threads:0}") int threads,
+                                  @Value("${rscarpoint.security.password-hashing.queue-capacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Completes exceptionally with TooManyRequestsException when the pool is saturated
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                    new TooManyRequestsException("Too many concurrent logins, retry shortly", RETRY_AFTER_SECONDS));
+        }
+    }
+
+    // Checks the password against an already loaded user and upgrades a hash weaker than the configured strength
+    public CompletableFuture<Boolean> verify(User user, String rawPassword) {
+        return submit(() -> {
+            String hash = user.getPassword();
+            if (hash == null || rawPassword == null || !passwordEncoder.matches(rawPassword, hash)) {
+                return false;
+            }
+            if (passwordEncoder.upgradeEncoding(hash)) {
+                userDetailsService.replacePasswordHash(user.getEmail(), hash, passwordEncoder.encode(rawPassword));
+            }
+            return true;
+        });
+    }
+
+    // Blocking variant for request paths that are not async, e.g. registration
+    public String encode(String rawPassword) {
+        CompletableFuture<String> hash = submit(() -> passwordEncoder.encode(rawPassword));
+        try {
+            return hash.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            hash.cancel(true);
+            throw new TooManyRequestsException("Password hashing timed out, retry shortly", RETRY_AFTER_SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.rscarpoint.security;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.model.User;
+
+// Compact in-memory revocation list: the lowest token version still accepted per email.
+// Only users who ever had tokens revoked (or were deleted) have an entry, so checks never hit the database.
+@Service
+public class TokenRevocationService {
+    private static final long REVOKED = Long.MAX_VALUE;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
+    private final Map<String, Long> minimumVersions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        Query revoked = query(where("tokenVersion").gt(0));
+        revoked.fields().include("email").include("tokenVersion");
+        for (User user : mongoTemplate.find(revoked, User.class)) {
+            if (user.getEmail() != null) {
+                minimumVersions.put(key(user.getEmail()), user.getTokenVersion());
+            }
+        }
+    }
+
+    public boolean isCurrent(String email, long tokenVersion) {
+        return tokenVersion >= minimumVersions.getOrDefault(key(email), 0L);
+    }
+
+    // Invalidates every access and refresh token issued to the user so far
+    public long revokeTokens(User user) {
+        User updated = mongoTemplate.findAndModify(query(where("_id").is(user.getId())),
+                new Update().inc("tokenVersion", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+        if (updated == null) {
+            return user.getTokenVersion();
+        }
+        user.setTokenVersion(updated.getTokenVersion());
+        minimumVersions.put(key(updated.getEmail()), updated.getTokenVersion());
+        authenticationCache.evictUser(updated.getEmail());
+        return updated.getTokenVersion();
+    }
+
+    // Tokens keep naming the old email after a change or deletion, so reject them outright
+    public void revokeEmail(String email) {
+        if (email != null) {
+            minimumVersions.put(key(email), REVOKED);
+            authenticationCache.evictUser(email);
+        }
+    }
+
+    // A new account may reuse the email of a deleted one
+    public void registered(User user) {
+        if (user.getEmail() != null) {
+            minimumVersions.put(key(user.getEmail()), user.getTokenVersion());
+        }
+    }
+
+    private String key(String email) {
+        return User.normalizeEmail(email);
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.bson.Document;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.dto.DealTotalsDto;
+import com.example.rscarpoint.dto.SalesBucketDto;
+import com.example.rscarpoint.event.DealChangedEvent;
+import com.example.rscarpoint.model.Deal;
+
+// Analytics summaries computed by MongoDB aggregation pipelines; only the summary rows leave the server
+@Service
+public class AnalyticsService {
+
+    public static final String INTERVAL_AUTO = "auto";
+    public static final String INTERVAL_DAY = "day";
+    public static final String INTERVAL_WEEK = "week";
+    public static final String INTERVAL_MONTH = "month";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Totals of calendar months that are over and were requested whole; evicted by DealChangedEvent
+    private final Map<YearMonth, SalesBucketDto> closedMonthCache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheGeneration = new AtomicLong();
+
+    public DealTotalsDto getDealTotals(TimeRange range) {
+        Aggregation aggregation = newAggregation(
+                match(range.toCriteria("date")),
+                group()
+                        .count().as("dealCount")
+                        .sum("salePrice").as("totalRevenue")
+                        .sum("commission").as("totalCommission"));
+        DealTotalsDto totals = mongoTemplate.aggregate(aggregation, Deal.class, DealTotalsDto.class)
+                .getUniqueMappedResult();
+        return totals != null ? totals : new DealTotalsDto(0, 0, 0);
+    }
+
+    // Sales series over Deal.date in day, week (ISO, Monday-Sunday) or month buckets, empty buckets included
+    public List<SalesBucketDto> getSalesSeries(TimeRange range, String interval, LocalDate today) {
+        TimeRange bounded = boundRange(range, today);
+        if (bounded == null) {
+            return List.of();
+        }
+        switch (resolveInterval(interval, bounded)) {
+            case INTERVAL_DAY:
+                return rollUp(bounded, dailyTotals(bounded), day -> day, LocalDate::toString);
+            case INTERVAL_WEEK:
+                return rollUp(bounded, dailyTotals(bounded),
+                        day -> day.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)),
+                        day -> String.format("%d-W%02d", day.get(IsoFields.WEEK_BASED_YEAR),
+                                day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)));
+            default:
+                return monthlySeries(bounded, today);
+        }
+    }
+
+    public String resolveInterval(String interval, TimeRange bounded) {
+        String value = interval == null ? INTERVAL_AUTO : interval.trim().toLowerCase();
+        switch (value) {
+            case INTERVAL_DAY:
+            case INTERVAL_WEEK:
+            case INTERVAL_MONTH:
+                return value;
+            case INTERVAL_AUTO:
+                long days = ChronoUnit.DAYS.between(bounded.getStart(), bounded.getEnd()) + 1;
+                return days <= 31 ? INTERVAL_DAY : days <= 183 ? INTERVAL_WEEK : INTERVAL_MONTH;
+            default:
+                throw new IllegalArgumentException("Unsupported interval '" + interval
+                        + "', expected day, week, month or auto");
+        }
+    }
+
+    // Open ranges start at the earliest deal and end today; null when there is nothing to chart
+    public TimeRange boundRange(TimeRange range, LocalDate today) {
+        LocalDate start = range.getStart();
+        LocalDate end = range.getEnd() != null ? range.getEnd() : today;
+        if (start == null) {
+            Query earliest = new Query(Criteria.where("date").ne(null))
+                    .with(Sort.by(Sort.Direction.ASC, "date"))
+                    .limit(1);
+            earliest.fields().include("date");
+            Deal first = mongoTemplate.findOne(earliest, Deal.class);
+            start = first != null ? parseDay(first.getDate()) : null;
+        }
+        if (start == null || start.isAfter(end)) {
+            return null;
+        }
+        return new TimeRange(start, end);
+    }
+
+    @EventListener
+    public void onDealChanged(DealChangedEvent event) {
+        cacheGeneration.incrementAndGet();
+        if (event.isBulk()) {
+            closedMonthCache.clear();
+            return;
+        }
+        evictMonthOf(event.getPrevious());
+        evictMonthOf(event.getCurrent());
+        event.getPreviousBatch().forEach(this::evictMonthOf);
+        event.getCurrentBatch().forEach(this::evictMonthOf);
+    }
+
+    private List<SalesBucketDto> monthlySeries(TimeRange range, LocalDate today) {
+        YearMonth currentMonth = YearMonth.from(today);
+        long generation = cacheGeneration.get();
+
+        List<SalesBucketDto> buckets = new ArrayList<>();
+        LocalDate missingStart = null;
+        LocalDate missingEnd = null;
+        for (YearMonth month = YearMonth.from(range.getStart()); !month.isAfter(YearMonth.from(range.getEnd()));
+                month = month.plusMonths(1)) {
+            LocalDate bucketStart = max(month.atDay(1), range.getStart());
+            LocalDate bucketEnd = min(month.atEndOfMonth(), range.getEnd());
+            SalesBucketDto cached = isWholeClosedMonth(month, bucketStart, bucketEnd, currentMonth)
+                    ? closedMonthCache.get(month) : null;
+            if (cached != null) {
+                buckets.add(cached);
+                continue;
+            }
+            buckets.add(new SalesBucketDto(month.toString(), bucketStart.toString(), bucketEnd.toString(), 0, 0, 0));
+            missingStart = missingStart == null ? bucketStart : missingStart;
+            missingEnd = bucketEnd;
+        }
+
+        if (missingStart != null) {
+            // One aggregation covers every month that was not cached
+            Map<String, Document> totals = monthlyTotals(new TimeRange(missingStart, missingEnd));
+            for (SalesBucketDto bucket : buckets) {
+                Document row = totals.get(bucket.getPeriod());
+                YearMonth month = YearMonth.parse(bucket.getPeriod());
+                if (closedMonthCache.get(month) == bucket) {
+                    continue;
+                }
+                if (row != null) {
+                    addRow(bucket, row);
+                }
+                if (isWholeClosedMonth(month, LocalDate.parse(bucket.getStart()), LocalDate.parse(bucket.getEnd()), currentMonth)) {
+                    closedMonthCache.put(month, bucket);
+                    // A deal write raced with this computation; the value may be stale
+                    if (cacheGeneration.get() != generation) {
+                        closedMonthCache.remove(month, bucket);
+                    }
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private boolean isWholeClosedMonth(YearMonth month, LocalDate bucketStart, LocalDate bucketEnd, YearMonth currentMonth) {
+        return month.isBefore(currentMonth)
+                && bucketStart.equals(month.atDay(1))
+                && bucketEnd.equals(month.atEndOfMonth());
+    }
+
+    private Map<String, Document> dailyTotals(TimeRange range) {
+        Aggregation aggregation = newAggregation(
+                match(range.toCriteria("date")),
+                group("date")
+                        .count().as("sales")
+                        .sum("salePrice").as("revenue")
+                        .sum("commission").as("commission"));
+        return byId(mongoTemplate.aggregate(aggregation, Deal.class, Document.class).getMappedResults());
+    }
+
+    private Map<String, Document> monthlyTotals(TimeRange range) {
+        Aggregation aggregation = newAggregation(
+                match(range.toCriteria("date")),
+                project("salePrice", "commission").and("date").substring(0, 7).as("month"),
+                group("month")
+                        .count().as("sales")
+                        .sum("salePrice").as("revenue")
+                        .sum("commission").as("commission"));
+        return byId(mongoTemplate.aggregate(aggregation, Deal.class, Document.class).getMappedResults());
+    }
+
+    private List<SalesBucketDto> rollUp(TimeRange range, Map<String, Document> daily,
+                                        UnaryOperator<LocalDate> bucketEndOf, Function<LocalDate, String> labelOf) {
+        List<SalesBucketDto> buckets = new ArrayList<>();
+        LocalDate bucketStart = range.getStart();
+        while (!bucketStart.isAfter(range.getEnd())) {
+            LocalDate bucketEnd = min(bucketEndOf.apply(bucketStart), range.getEnd());
+            SalesBucketDto bucket = new SalesBucketDto(labelOf.apply(bucketStart), bucketStart.toString(),
+                    bucketEnd.toString(), 0, 0, 0);
+            for (LocalDate day = bucketStart; !day.isAfter(bucketEnd); day = day.plusDays(1)) {
+                Document row = daily.get(day.toString());
+                if (row != null) {
+                    addRow(bucket, row);
+                }
+            }
+            buckets.add(bucket);
+            bucketStart = bucketEnd.plusDays(1);
+        }
+        return buckets;
+    }
+
+    private Map<String, Document> byId(List<Document> rows) {
+        Map<String, Document> byId = new HashMap<>();
+        for (Document row : rows) {
+            Object id = row.get("_id");
+            if (id != null) {
+                byId.put(id.toString(), row);
+            }
+        }
+        return byId;
+    }
+
+    private void addRow(SalesBucketDto bucket, Document row) {
+        bucket.setSales(bucket.getSales() + row.get("sales", Number.class).longValue());
+        bucket.setRevenue(bucket.getRevenue() + row.get("revenue", Number.class).doubleValue());
+        bucket.setCommission(bucket.getCommission() + row.get("commission", Number.class).doubleValue());
+    }
+
+    private void evictMonthOf(Deal deal) {
+        if (deal == null || deal.getDate() == null) {
+            return;
+        }
+        LocalDate day = parseDay(deal.getDate());
+        if (day != null) {
+            closedMonthCache.remove(YearMonth.from(day));
+        } else {
+            closedMonthCache.clear();
+        }
+    }
+
+    private LocalDate parseDay(String date) {
+        try {
+            return date != null && date.length() >= 10 ? LocalDate.parse(date.substring(0, 10)) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.rscarpoint.dto.BulkResultDto;
+import com.mongodb.bulk.BulkWriteError;
+
+// Cuts a bulk request body into batches for unordered bulkWrites. Items are pulled off the iterator as
+// they are parsed, so an NDJSON upload is written while it is still being read.
+@Component
+public class BulkBatches {
+
+    @Value("${rscarpoint.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${rscarpoint.bulk.max-items:10000}")
+    private int maxItems;
+
+    // One request item with its position in the body
+    public record Item<T>(int index, T value) {
+    }
+
+    // A malformed item ends the stream: everything after it is unreadable, everything before is kept
+    public <T> void forEachBatch(Iterator<T> items, BulkResultDto result, Consumer<List<Item<T>>> handler) {
+        List<Item<T>> batch = new ArrayList<>(batchSize);
+        int index = 0;
+        while (true) {
+            T value;
+            try {
+                if (!items.hasNext()) {
+                    break;
+                }
+                value = items.next();
+            } catch (RuntimeException e) {
+                result.failure(index, null, "Malformed item, request stopped here: " + e.getMessage());
+                break;
+            }
+            if (index >= maxItems) {
+                result.failure(index, null, "More than " + maxItems + " items, request stopped here");
+                break;
+            }
+            batch.add(new Item<>(index++, value));
+            if (batch.size() == batchSize) {
+                handler.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            handler.accept(batch);
+        }
+    }
+
+    // Runs an unordered bulkWrite of the given number of operations; returns the error message per
+    // operation position that failed. When the write fails as a whole, e.g. on a timeout, every position
+    // is reported, since which operations were applied is unknown.
+    public static Map<Integer, String> execute(BulkOperations bulk, int operations) {
+        Map<Integer, String> errors = new HashMap<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Bulk write failed: " + e.getMessage());
+            for (int i = 0; i < operations; i++) {
+                errors.put(i, "Write failed, outcome unknown: " + e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    // Which of the given ids exist, in one query
+    public static Set<String> existingIds(MongoTemplate mongoTemplate, Collection<String> ids, Class<?> entityClass) {
+        Set<String> found = new HashSet<>();
+        for (Object id : mongoTemplate.findDistinct(query(where("_id").in(ids)), "_id", entityClass, Object.class)) {
+            found.add(id.toString());
+        }
+        return found;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.model.Deal;
+
+// Vehicle side effects of deal transitions. The transition write itself records the vehicle status to
+// apply on the deal (Deal.pendingVehicleStatus), so a crash between the deal and the vehicle write is
+// repaired by the next sweep instead of leaving a completed deal with an unsold vehicle.
+@Service
+public class DealOutbox {
+
+    static final String PENDING_VEHICLE_STATUS = "pendingVehicleStatus";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    // Idempotent: the vehicle write is conditional and the marker is only cleared if it was not replaced
+    public void apply(Deal deal) {
+        String vehicleStatus = deal.getPendingVehicleStatus();
+        if (vehicleStatus == null) {
+            return;
+        }
+        vehicleService.updateVehicleStatus(deal.getVehicleId(), vehicleStatus);
+        mongoTemplate.updateFirst(
+                query(where("_id").is(deal.getId()).and(PENDING_VEHICLE_STATUS).is(vehicleStatus)),
+                new Update().unset(PENDING_VEHICLE_STATUS), Deal.class);
+    }
+
+    @Scheduled(fixedDelayString = "${rscarpoint.deals.outbox-sweep-ms:60000}")
+    public void sweep() {
+        try {
+            List<Deal> pending = mongoTemplate.find(query(where(PENDING_VEHICLE_STATUS).exists(true)), Deal.class);
+            for (Deal deal : pending) {
+                apply(deal);
+            }
+        } catch (Exception e) {
+            System.err.println("Error applying pending deal side effects: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.dto.BrokerPerformanceDto;
+import com.example.rscarpoint.dto.DealTotalsDto;
+import com.example.rscarpoint.dto.VehicleTypeCountDto;
+import com.example.rscarpoint.event.DealChangedEvent;
+import com.example.rscarpoint.model.Deal;
+import com.example.rscarpoint.model.DealRollup;
+import com.example.rscarpoint.model.Vehicle;
+
+// Keeps the deal_rollups collection in step with deals through atomic $inc upserts, one per
+// affected bucket, so revenue and broker summaries read O(buckets) documents instead of every deal.
+// A deal is counted under the make recorded on it (Deal.vehicleMake), so editing the vehicle later
+// cannot make the decrement miss the bucket the increment went to.
+@Service
+public class DealRollupService {
+
+    public static final String UNKNOWN_MAKE = "Unknown";
+    private static final int BULK_BATCH_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${rscarpoint.analytics.rebuild-rollups-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    // Incremental updates share the lock, a rebuild takes it exclusively (per node)
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        long backfilled = backfillVehicleMakes();
+        if (backfilled > 0) {
+            System.out.println("Recorded the vehicle make on " + backfilled + " deals.");
+        }
+        // An empty rollup collection next to existing deals means rollups were never built
+        if (rebuildOnStartup || backfilled > 0 || (!mongoTemplate.exists(new Query(), DealRollup.class)
+                && mongoTemplate.exists(new Query(), Deal.class))) {
+            System.out.println("Rebuilt " + rebuild() + " deal rollup buckets.");
+        }
+    }
+
+    // The make a deal is recorded under; vehicles without one share a bucket
+    public static String makeOf(Vehicle vehicle) {
+        return vehicle != null && vehicle.getMake() != null ? vehicle.getMake() : UNKNOWN_MAKE;
+    }
+
+    // Idempotent: deals saved before vehicleMake existed get their vehicle's current make
+    public long backfillVehicleMakes() {
+        Query missing = query(where("vehicleMake").exists(false));
+        missing.fields().include("vehicleId");
+        Set<String> vehicleIds = new HashSet<>();
+        try (Stream<Deal> deals = mongoTemplate.stream(missing, Deal.class)) {
+            deals.forEach(deal -> vehicleIds.add(deal.getVehicleId()));
+        }
+
+        long backfilled = 0;
+        List<String> ids = new ArrayList<>(vehicleIds);
+        for (int from = 0; from < ids.size(); from += BULK_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + BULK_BATCH_SIZE, ids.size()));
+            Query vehicles = query(where("_id").in(batch));
+            vehicles.fields().include("make");
+            Map<String, String> makes = new HashMap<>();
+            mongoTemplate.find(vehicles, Vehicle.class).forEach(vehicle -> makes.put(vehicle.getId(), makeOf(vehicle)));
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Deal.class);
+            for (String vehicleId : batch) {
+                bulk.updateMulti(query(where("vehicleId").is(vehicleId).and("vehicleMake").exists(false)),
+                        new Update().set("vehicleMake", makes.getOrDefault(vehicleId, UNKNOWN_MAKE)));
+            }
+            backfilled += bulk.execute().getModifiedCount();
+        }
+        return backfilled;
+    }
+
+    @EventListener
+    public void onDealChanged(DealChangedEvent event) {
+        if (event.isBulk()) {
+            rebuild();
+            return;
+        }
+        rebuildLock.readLock().lock();
+        try {
+            apply(event.getPrevious(), -1);
+            apply(event.getCurrent(), 1);
+            applyBatch(event.getPreviousBatch(), event.getCurrentBatch());
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    // Recomputes every bucket from the deals collection to repair drift. Buckets are overwritten in place
+    // and only the ones no deal maps to any more are deleted, so readers never see a half-empty collection.
+    // The lock only orders this against updates made on the same node; an update another node applies
+    // while the deals are being aggregated can be overwritten, and is corrected by the next rebuild.
+    public int rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            Aggregation aggregation = newAggregation(
+                    group("date", "brokerId", "vehicleMake", "status")
+                            .count().as("dealCount")
+                            .sum("salePrice").as("revenue")
+                            .sum("commission").as("commission"));
+            List<Document> rows = mongoTemplate.aggregate(aggregation, Deal.class, Document.class).getMappedResults();
+
+            Map<String, DealRollup> buckets = new LinkedHashMap<>();
+            for (Document row : rows) {
+                Document key = row.get("_id", Document.class);
+                String make = key.getString("vehicleMake") != null ? key.getString("vehicleMake") : UNKNOWN_MAKE;
+                DealRollup bucket = buckets.computeIfAbsent(
+                        bucketId(key.getString("date"), key.getString("brokerId"), make, key.getString("status")),
+                        id -> newBucket(id, key.getString("date"), key.getString("brokerId"), make, key.getString("status")));
+                bucket.setDealCount(bucket.getDealCount() + row.get("dealCount", Number.class).longValue());
+                bucket.setRevenue(bucket.getRevenue() + row.get("revenue", Number.class).doubleValue());
+                bucket.setCommission(bucket.getCommission() + row.get("commission", Number.class).doubleValue());
+            }
+
+            Query existing = new Query();
+            existing.fields().include("_id");
+            Set<String> stale = new HashSet<>();
+            mongoTemplate.find(existing, DealRollup.class).forEach(bucket -> stale.add(bucket.getId()));
+            stale.removeAll(buckets.keySet());
+
+            List<DealRollup> batch = new ArrayList<>(BULK_BATCH_SIZE);
+            for (DealRollup bucket : buckets.values()) {
+                batch.add(bucket);
+                if (batch.size() == BULK_BATCH_SIZE) {
+                    replace(batch);
+                }
+            }
+            replace(batch);
+            List<String> staleIds = new ArrayList<>(stale);
+            for (int from = 0; from < staleIds.size(); from += BULK_BATCH_SIZE) {
+                mongoTemplate.remove(query(where("_id").in(
+                        staleIds.subList(from, Math.min(from + BULK_BATCH_SIZE, staleIds.size())))), DealRollup.class);
+            }
+            return buckets.size();
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    public DealTotalsDto getDealTotals(TimeRange range, String status) {
+        Aggregation aggregation = newAggregation(
+                match(filter(range, status)),
+                group()
+                        .sum("dealCount").as("dealCount")
+                        .sum("revenue").as("totalRevenue")
+                        .sum("commission").as("totalCommission"));
+        DealTotalsDto totals = mongoTemplate.aggregate(aggregation, DealRollup.class, DealTotalsDto.class)
+                .getUniqueMappedResult();
+        return totals != null ? totals : new DealTotalsDto(0, 0, 0);
+    }
+
+    // Revenue growth against the previous period of the same length, in percent
+    public double getRevenueGrowthRate(TimeRange range, String status, double currentRevenue) {
+        if (!range.isBounded()) {
+            return 0;
+        }
+        double previousRevenue = getDealTotals(range.previous(), status).getTotalRevenue();
+        if (previousRevenue == 0) {
+            return 0;
+        }
+        return (currentRevenue - previousRevenue) * 100.0 / previousRevenue;
+    }
+
+    public List<BrokerPerformanceDto> getBrokerPerformance(TimeRange range, String status) {
+        Aggregation aggregation = newAggregation(
+                match(filter(range, status)),
+                group("brokerId")
+                        .sum("revenue").as("totalSales")
+                        .sum("dealCount").as("dealCount"),
+                project("totalSales", "dealCount").and("brokerId").previousOperation(),
+                sort(Sort.Direction.DESC, "totalSales"));
+        return mongoTemplate.aggregate(aggregation, DealRollup.class, BrokerPerformanceDto.class).getMappedResults();
+    }
+
+    // Deals per make (the dashboard uses make as the vehicle type)
+    public List<VehicleTypeCountDto> getDealCountsByMake(TimeRange range, String status) {
+        Aggregation aggregation = newAggregation(
+                match(filter(range, status)),
+                group("make").sum("dealCount").as("count"),
+                project("count").and("type").previousOperation(),
+                sort(Sort.Direction.DESC, "count"));
+        return mongoTemplate.aggregate(aggregation, DealRollup.class, VehicleTypeCountDto.class).getMappedResults();
+    }
+
+    private Criteria filter(TimeRange range, String status) {
+        Criteria criteria = range.toCriteria("date");
+        return status == null ? criteria : new Criteria().andOperator(criteria, where("status").is(status));
+    }
+
+    private void apply(Deal deal, int sign) {
+        if (deal == null) {
+            return;
+        }
+        String make = makeOf(deal);
+        String id = bucketId(deal.getDate(), deal.getBrokerId(), make, deal.getStatus());
+        Update update = new Update()
+                .setOnInsert("date", deal.getDate())
+                .setOnInsert("brokerId", deal.getBrokerId())
+                .setOnInsert("make", make)
+                .setOnInsert("status", deal.getStatus())
+                .inc("dealCount", sign)
+                .inc("revenue", sign * deal.getSalePrice())
+                .inc("commission", sign * deal.getCommission());
+        mongoTemplate.upsert(query(where("_id").is(id)), update, DealRollup.class);
+        if (sign < 0) {
+            // Drop buckets that no longer hold any deal
+            mongoTemplate.remove(query(where("_id").is(id).and("dealCount").lte(0)), DealRollup.class);
+        }
+    }
+
+    // Deals of one bulk batch: the previous deals are subtracted and the current ones added per bucket
+    // first, then one $inc upsert per touched bucket goes out in a single bulkWrite
+    private void applyBatch(List<Deal> previous, List<Deal> current) {
+        if (previous.isEmpty() && current.isEmpty()) {
+            return;
+        }
+        Map<String, DealRollup> deltas = new LinkedHashMap<>();
+        addDeltas(deltas, previous, -1);
+        addDeltas(deltas, current, 1);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DealRollup.class);
+        for (DealRollup delta : deltas.values()) {
+            bulk.upsert(query(where("_id").is(delta.getId())), new Update()
+                    .setOnInsert("date", delta.getDate())
+                    .setOnInsert("brokerId", delta.getBrokerId())
+                    .setOnInsert("make", delta.getMake())
+                    .setOnInsert("status", delta.getStatus())
+                    .inc("dealCount", delta.getDealCount())
+                    .inc("revenue", delta.getRevenue())
+                    .inc("commission", delta.getCommission()));
+        }
+        bulk.execute();
+        if (!previous.isEmpty()) {
+            // Drop buckets that no longer hold any deal
+            mongoTemplate.remove(query(where("_id").in(deltas.keySet()).and("dealCount").lte(0)), DealRollup.class);
+        }
+    }
+
+    private static void addDeltas(Map<String, DealRollup> deltas, List<Deal> deals, int sign) {
+        for (Deal deal : deals) {
+            String make = makeOf(deal);
+            DealRollup delta = deltas.computeIfAbsent(bucketId(deal.getDate(), deal.getBrokerId(), make, deal.getStatus()),
+                    id -> newBucket(id, deal.getDate(), deal.getBrokerId(), make, deal.getStatus()));
+            delta.setDealCount(delta.getDealCount() + sign);
+            delta.setRevenue(delta.getRevenue() + sign * deal.getSalePrice());
+            delta.setCommission(delta.getCommission() + sign * deal.getCommission());
+        }
+    }
+
+    // Upserts each bucket with its recomputed totals
+    private void replace(List<DealRollup> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DealRollup.class);
+        for (DealRollup bucket : batch) {
+            bulk.upsert(query(where("_id").is(bucket.getId())), new Update()
+                    .set("date", bucket.getDate())
+                    .set("brokerId", bucket.getBrokerId())
+                    .set("make", bucket.getMake())
+                    .set("status", bucket.getStatus())
+                    .set("dealCount", bucket.getDealCount())
+                    .set("revenue", bucket.getRevenue())
+                    .set("commission", bucket.getCommission()));
+        }
+        bulk.execute();
+        batch.clear();
+    }
+
+    private static String makeOf(Deal deal) {
+        return deal.getVehicleMake() != null ? deal.getVehicleMake() : UNKNOWN_MAKE;
+    }
+
+    private static String bucketId(String date, String brokerId, String make, String status) {
+        return date + "|" + brokerId + "|" + make + "|" + status;
+    }
+
+    private static DealRollup newBucket(String id, String date, String brokerId, String make, String status) {
+        DealRollup bucket = new DealRollup();
+        bucket.setId(id);
+        bucket.setDate(date);
+        bucket.setBrokerId(brokerId);
+        bucket.setMake(make);
+        bucket.setStatus(status);
+        return bucket;
+    }
+}
@@ -1,16 +1,41 @@
 package com.example.rscarpoint.service;
 
+import com.example.rscarpoint.cache.ReferenceNameCache;
+import com.example.rscarpoint.cache.ReferenceNameCache.VehicleName;
+import com.example.rscarpoint.dto.BulkResultDto;
+import com.example.rscarpoint.dto.CursorPageDto;
+import com.example.rscarpoint.dto.DealSummaryDto;
+import com.example.rscarpoint.event.DealChangedEvent;
+import com.example.rscarpoint.exception.ConflictException;
+import com.example.rscarpoint.exception.ResourceNotFoundException;
 import com.example.rscarpoint.model.Deal;
-import com.example.rscarpoint.model.Vehicle;
 import com.example.rscarpoint.model.User;
+import com.example.rscarpoint.model.Vehicle;
 import com.example.rscarpoint.repository.DealRepository;
-import com.example.rscarpoint.repository.VehicleRepository;
+import com.example.rscarpoint.repository.KeysetPager;
+import com.example.rscarpoint.repository.KeysetSort;
 import com.example.rscarpoint.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class DealService {
@@ -19,17 +44,153 @@ public class DealService {
     private DealRepository dealRepository;
     
     @Autowired
-    private VehicleRepository vehicleRepository;
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DealOutbox dealOutbox;
     
     @Autowired
-    private UserRepository userRepository;
+    private VehicleReservationService vehicleReservationService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private BulkBatches bulkBatches;
     
     private static final double COMMISSION_RATE = 0.20; // 20% commission
     
+    private static final String VEHICLE_SOLD = "Sold";
+    
+    // Statuses a deal may be moved out of, keyed by the target status; completed is final
+    private static final Map<String, Set<String>> ALLOWED_FROM = Map.of(
+        "pending", Set.of("approved", "rejected"),
+        "approved", Set.of("pending"),
+        "completed", Set.of("pending", "approved"),
+        "rejected", Set.of("pending", "approved")
+    );
+    
+    // Keyset sort options for paged listings, see KeysetPager
+    public static final Map<String, KeysetSort<Deal>> SORTS = Map.of(
+        "id", new KeysetSort<>("_id", Deal::getId),
+        "date", new KeysetSort<>("date", Deal::getDate),
+        "salePrice", new KeysetSort<>("salePrice", Deal::getSalePrice)
+    );
+    
+    @Autowired
+    private KeysetPager keysetPager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ReferenceNameCache referenceNameCache;
+    
     public List<Deal> getAllDeals() {
         return dealRepository.findAll();
     }
     
+    // Unpaged listing with the filters of getDealsPage
+    public List<Deal> getDeals(String brokerId, String vehicleId, String status) {
+        return mongoTemplate.find(dealFilter(brokerId, vehicleId, status), Deal.class);
+    }
+    
+    // Paged listing; brokerId, vehicleId and status are optional equality filters
+    public CursorPageDto<Deal> getDealsPage(String brokerId, String vehicleId, String status, String sort,
+                                            String direction, String cursor, Integer size) {
+        return keysetPager.page(dealFilter(brokerId, vehicleId, status), Deal.class,
+                KeysetSort.resolve(SORTS, sort, "date"), direction, cursor, size);
+    }
+    
+    // Listings with vehicle make/model and broker name filled in, see summarize
+    public List<DealSummaryDto> getDealSummaries(String brokerId, String vehicleId, String status) {
+        return summarize(mongoTemplate.find(dealFilter(brokerId, vehicleId, status), Deal.class));
+    }
+    
+    public CursorPageDto<DealSummaryDto> getDealSummariesPage(String brokerId, String vehicleId, String status,
+                                                              String sort, String direction, String cursor,
+                                                              Integer size) {
+        return getDealsPage(brokerId, vehicleId, status, sort, direction, cursor, size).mapItems(this::summarize);
+    }
+    
+    // Referenced vehicles and brokers are resolved for the whole list at once: at most one $in query per
+    // collection, and none for ids still in ReferenceNameCache
+    public List<DealSummaryDto> summarize(List<Deal> deals) {
+        Map<String, VehicleName> vehicles = referenceNameCache.getVehicleNames(
+                deals.stream().map(Deal::getVehicleId).toList(), this::loadVehicleNames);
+        Map<String, String> brokers = getBrokerNames(deals.stream().map(Deal::getBrokerId).toList());
+        List<DealSummaryDto> summaries = new ArrayList<>(deals.size());
+        for (Deal deal : deals) {
+            VehicleName vehicle = vehicles.getOrDefault(deal.getVehicleId(), VehicleName.MISSING);
+            summaries.add(new DealSummaryDto(deal.getId(), deal.getVehicleId(), vehicle.make(), vehicle.model(),
+                    deal.getBrokerId(), brokers.get(deal.getBrokerId()), deal.getSalePrice(), deal.getCommission(),
+                    deal.getDate(), deal.getStatus()));
+        }
+        return summaries;
+    }
+    
+    public Map<String, String> getBrokerNames(Collection<String> brokerIds) {
+        return referenceNameCache.getBrokerNames(brokerIds, this::loadBrokerNames);
+    }
+    
+    private Map<String, VehicleName> loadVehicleNames(Set<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("make", "model");
+        Map<String, VehicleName> names = new HashMap<>();
+        for (Vehicle vehicle : mongoTemplate.find(query, Vehicle.class)) {
+            names.put(vehicle.getId(), new VehicleName(vehicle.getMake(), vehicle.getModel()));
+        }
+        return names;
+    }
+    
+    // Make recorded on a new deal, or on a deal moved to another vehicle
+    private String findVehicleMake(String vehicleId) {
+        Query query = new Query(Criteria.where("_id").is(vehicleId));
+        query.fields().include("make");
+        Vehicle vehicle = mongoTemplate.findOne(query, Vehicle.class);
+        if (vehicle == null) {
+            throw new IllegalArgumentException("Vehicle not found");
+        }
+        return DealRollupService.makeOf(vehicle);
+    }
+    
+    // Make per existing vehicle id; ids of missing vehicles are absent
+    private Map<String, String> vehicleMakes(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("make");
+        Map<String, String> makes = new HashMap<>();
+        for (Vehicle vehicle : mongoTemplate.find(query, Vehicle.class)) {
+            makes.put(vehicle.getId(), DealRollupService.makeOf(vehicle));
+        }
+        return makes;
+    }
+    
+    private Map<String, String> loadBrokerNames(Set<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("name");
+        Map<String, String> names = new HashMap<>();
+        for (User user : mongoTemplate.find(query, User.class)) {
+            if (user.getName() != null) {
+                names.put(user.getId(), user.getName());
+            }
+        }
+        return names;
+    }
+    
+    private static Query dealFilter(String brokerId, String vehicleId, String status) {
+        Query filter = new Query();
+        if (brokerId != null) {
+            filter.addCriteria(Criteria.where("brokerId").is(brokerId));
+        }
+        if (vehicleId != null) {
+            filter.addCriteria(Criteria.where("vehicleId").is(vehicleId));
+        }
+        if (status != null) {
+            filter.addCriteria(Criteria.where("status").is(status));
+        }
+        return filter;
+    }
+    
     public Optional<Deal> getDealById(String id) {
         return dealRepository.findById(id);
     }
@@ -46,17 +207,46 @@ public class DealService {
         return dealRepository.findByStatus(status);
     }
     
+    // The vehicle is reserved for the deal before it is inserted; a vehicle that is not Available
+    // answers ConflictException, so concurrent brokers cannot open two live deals on it
     public Deal createDeal(Deal deal) {
-        // Validate that vehicle and broker exist
-        if (!vehicleRepository.existsById(deal.getVehicleId())) {
-            throw new IllegalArgumentException("Vehicle not found");
-        }
-        
+        // Validate that the broker exists; the vehicle is checked by the reservation
         Optional<User> broker = userRepository.findById(deal.getBrokerId());
         if (broker.isEmpty() || !"broker".equalsIgnoreCase(broker.get().getRole())) {
             throw new IllegalArgumentException("Invalid broker");
         }
         
+        prepareNewDeal(deal);
+        if (holdsVehicle(deal.getStatus())) {
+            Vehicle reserved = vehicleReservationService.reserve(deal.getVehicleId(), deal.getId(),
+                    isPending(deal.getStatus()));
+            deal.setVehicleMake(DealRollupService.makeOf(reserved));
+        } else {
+            deal.setVehicleMake(findVehicleMake(deal.getVehicleId()));
+        }
+        
+        Deal savedDeal;
+        try {
+            savedDeal = dealRepository.save(deal);
+        } catch (RuntimeException e) {
+            vehicleReservationService.release(deal.getVehicleId(), deal.getId());
+            throw e;
+        }
+        dealOutbox.apply(savedDeal);
+        eventPublisher.publishEvent(new DealChangedEvent(null, savedDeal));
+        return savedDeal;
+    }
+    
+    // Required fields of a new deal, shared by POST /api/deals and the bulk import; null when valid
+    public static String validateNewDeal(Deal deal) {
+        if (deal == null || deal.getVehicleId() == null || deal.getBrokerId() == null || deal.getSalePrice() <= 0) {
+            return "vehicleId, brokerId and a positive salePrice are required";
+        }
+        return null;
+    }
+    
+    // Commission and defaults of a new deal. The id is assigned up front so the reservation can name its holder.
+    private void prepareNewDeal(Deal deal) {
         // Calculate commission
         deal.setCommission(deal.getSalePrice() * COMMISSION_RATE);
         
@@ -68,23 +258,133 @@ public class DealService {
             deal.setDate(LocalDate.now().toString());
         }
         
-        return dealRepository.save(deal);
+        deal.setId(new ObjectId().toHexString());
+        deal.setVersion(null);
+        deal.setPendingVehicleStatus(isCompleted(deal.getStatus()) ? VEHICLE_SOLD : null);
     }
     
+    // Bulk import with the rules of createDeal. Per batch the brokers are loaded with one query, the
+    // vehicles reserved with one bulkWrite and the deals inserted with another.
+    public BulkResultDto createDeals(Iterator<Deal> deals) {
+        BulkResultDto result = new BulkResultDto();
+        bulkBatches.forEachBatch(deals, result, batch -> {
+            Set<String> brokerIds = new HashSet<>();
+            batch.forEach(item -> {
+                if (item.value() != null && item.value().getBrokerId() != null) {
+                    brokerIds.add(item.value().getBrokerId());
+                }
+            });
+            Map<String, User> brokers = new HashMap<>();
+            userRepository.findAllById(brokerIds).forEach(user -> brokers.put(user.getId(), user));
+            
+            List<BulkBatches.Item<Deal>> valid = new ArrayList<>();
+            for (BulkBatches.Item<Deal> item : batch) {
+                String error = validateNewDeal(item.value());
+                User broker = error == null ? brokers.get(item.value().getBrokerId()) : null;
+                if (error == null && (broker == null || !"broker".equalsIgnoreCase(broker.getRole()))) {
+                    error = "Invalid broker";
+                }
+                if (error != null) {
+                    result.failure(item.index(), null, error);
+                    continue;
+                }
+                prepareNewDeal(item.value());
+                item.value().setVersion(0L);
+                valid.add(item);
+            }
+            
+            List<Deal> holding = valid.stream().map(BulkBatches.Item::value)
+                    .filter(deal -> holdsVehicle(deal.getStatus())).toList();
+            Set<String> reserved = vehicleReservationService.reserveAll(holding);
+            // Also tells which vehicles of the non-holding deals exist
+            Map<String, String> makes = valid.isEmpty() ? Map.of()
+                    : vehicleMakes(valid.stream().map(item -> item.value().getVehicleId()).toList());
+            
+            List<BulkBatches.Item<Deal>> ready = new ArrayList<>();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Deal.class);
+            for (BulkBatches.Item<Deal> item : valid) {
+                Deal deal = item.value();
+                if (holdsVehicle(deal.getStatus()) ? !reserved.contains(deal.getId())
+                        : !makes.containsKey(deal.getVehicleId())) {
+                    result.failure(item.index(), null, "Vehicle not found or not available");
+                    continue;
+                }
+                deal.setVehicleMake(makes.getOrDefault(deal.getVehicleId(), DealRollupService.UNKNOWN_MAKE));
+                bulk.insert(deal);
+                ready.add(item);
+            }
+            if (ready.isEmpty()) {
+                return;
+            }
+            
+            Map<Integer, String> errors = BulkBatches.execute(bulk, ready.size());
+            // After a failed write, deals that made it in anyway keep their reservation and count as created
+            Set<String> written = errors.isEmpty() ? Set.of() : BulkBatches.existingIds(mongoTemplate,
+                    errors.keySet().stream().map(i -> ready.get(i).value().getId()).toList(), Deal.class);
+            List<Deal> created = new ArrayList<>();
+            for (int i = 0; i < ready.size(); i++) {
+                Deal deal = ready.get(i).value();
+                if (errors.containsKey(i) && !written.contains(deal.getId())) {
+                    vehicleReservationService.release(deal.getVehicleId(), deal.getId());
+                    result.failure(ready.get(i).index(), null, errors.get(i));
+                } else {
+                    dealOutbox.apply(deal);
+                    result.success(ready.get(i).index(), deal.getId(), "created");
+                    created.add(deal);
+                }
+            }
+            // Rollups take the batch as $inc deltas rather than a full rebuild
+            if (!created.isEmpty()) {
+                eventPublisher.publishEvent(DealChangedEvent.created(created));
+            }
+        });
+        return result.sorted();
+    }
+    
+    // A status in the body goes through updateDealStatus, after the other edits, so PUT obeys the same
+    // transitions as the status endpoints. An unknown status or a transition the deal cannot make is
+    // rejected before anything is written.
     public Deal updateDeal(String id, Deal dealDetails) {
-        Optional<Deal> dealOpt = dealRepository.findById(id);
-        if (dealOpt.isEmpty()) {
-            throw new IllegalArgumentException("Deal not found");
+        String status = dealDetails.getStatus();
+        if (status == null) {
+            return updateDealDetails(id, dealDetails);
+        }
+        Set<String> allowedFrom = ALLOWED_FROM.get(status);
+        if (allowedFrom == null) {
+            throw new IllegalArgumentException("Unknown deal status: " + status);
+        }
+        Deal current = findDeal(id);
+        boolean statusChanged = !status.equals(current.getStatus());
+        if (statusChanged && !allowedFrom.contains(current.getStatus())) {
+            throw conflict(id, current.getStatus(), status, null);
         }
         
-        Deal existingDeal = dealOpt.get();
+        Deal edits = copyOf(dealDetails);
+        edits.setStatus(null);
+        Deal savedDeal = hasEdits(edits) ? updateDealDetails(id, edits) : current;
+        return statusChanged ? updateDealStatus(id, status) : savedDeal;
+    }
+    
+    private static boolean hasEdits(Deal dealDetails) {
+        return dealDetails.getVehicleId() != null || dealDetails.getBrokerId() != null
+                || dealDetails.getSalePrice() > 0 || dealDetails.getDate() != null;
+    }
+    
+    // Edits that leave the vehicle alone are one $set; moving a deal to another vehicle reserves that
+    // vehicle first and goes through a versioned save
+    private Deal updateDealDetails(String id, Deal dealDetails) {
+        if (dealDetails.getVehicleId() == null) {
+            return updateDealFields(id, dealDetails);
+        }
+        Deal existingDeal = findDeal(id);
+        Deal previous = copyOf(existingDeal);
         
-        // Update fields
-        if (dealDetails.getVehicleId() != null) {
-            if (!vehicleRepository.existsById(dealDetails.getVehicleId())) {
-                throw new IllegalArgumentException("Vehicle not found");
-            }
-            existingDeal.setVehicleId(dealDetails.getVehicleId());
+        // Update fields; the new vehicle is checked by its reservation below
+        existingDeal.setVehicleId(dealDetails.getVehicleId());
+        boolean vehicleChanged = !existingDeal.getVehicleId().equals(previous.getVehicleId());
+        // The sold vehicle belongs to a completed deal for good
+        if (vehicleChanged && isCompleted(previous.getStatus())) {
+            throw new ConflictException("Deal " + id + " is completed and cannot move to another vehicle");
         }
         
         if (dealDetails.getBrokerId() != null) {
@@ -101,65 +401,318 @@ public class DealService {
             existingDeal.setCommission(dealDetails.getSalePrice() * COMMISSION_RATE);
         }
         
-        if (dealDetails.getStatus() != null) {
-            existingDeal.setStatus(dealDetails.getStatus());
-            
-            // If deal is completed, update vehicle status
-            if ("completed".equalsIgnoreCase(dealDetails.getStatus())) {
-                updateVehicleStatus(existingDeal.getVehicleId(), "Sold");
+        if (dealDetails.getDate() != null) {
+            existingDeal.setDate(dealDetails.getDate());
+        }
+        
+        boolean holding = holdsVehicle(existingDeal.getStatus());
+        if (vehicleChanged && holding) {
+            Vehicle reserved = vehicleReservationService.reserve(existingDeal.getVehicleId(), id,
+                    isPending(existingDeal.getStatus()));
+            existingDeal.setVehicleMake(DealRollupService.makeOf(reserved));
+        } else if (vehicleChanged) {
+            existingDeal.setVehicleMake(findVehicleMake(existingDeal.getVehicleId()));
+        }
+        
+        // @Version turns a concurrent edit into an OptimisticLockingFailureException instead of a lost update
+        Deal savedDeal = dealRepository.save(existingDeal);
+        if (vehicleChanged && holding) {
+            vehicleReservationService.release(previous.getVehicleId(), id);
+        }
+        eventPublisher.publishEvent(new DealChangedEvent(previous, savedDeal));
+        return savedDeal;
+    }
+    
+    // Broker, price and date only; the findAndModify pre-image feeds the DealChangedEvent
+    private Deal updateDealFields(String id, Deal dealDetails) {
+        if (dealDetails.getBrokerId() != null) {
+            Optional<User> broker = userRepository.findById(dealDetails.getBrokerId());
+            if (broker.isEmpty() || !isBroker(broker.get())) {
+                throw new IllegalArgumentException("Invalid broker");
             }
         }
         
+        Deal previous = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)),
+                fieldUpdate(dealDetails), Deal.class);
+        if (previous == null) {
+            throw new ResourceNotFoundException("Deal not found");
+        }
+        Deal savedDeal = withFields(previous, dealDetails);
+        eventPublisher.publishEvent(new DealChangedEvent(previous, savedDeal));
+        return savedDeal;
+    }
+    
+    // The broker, price and date edits of dealDetails as one update, with the version bump
+    private static Update fieldUpdate(Deal dealDetails) {
+        Update update = new Update().inc("version", 1);
+        if (dealDetails.getBrokerId() != null) {
+            update.set("brokerId", dealDetails.getBrokerId());
+        }
+        if (dealDetails.getSalePrice() > 0) {
+            update.set("salePrice", dealDetails.getSalePrice())
+                    .set("commission", dealDetails.getSalePrice() * COMMISSION_RATE);
+        }
         if (dealDetails.getDate() != null) {
-            existingDeal.setDate(dealDetails.getDate());
+            update.set("date", dealDetails.getDate());
+        }
+        return update;
+    }
+    
+    // The deal as fieldUpdate leaves it
+    private Deal withFields(Deal deal, Deal dealDetails) {
+        Deal updated = copyOf(deal);
+        if (dealDetails.getBrokerId() != null) {
+            updated.setBrokerId(dealDetails.getBrokerId());
+        }
+        if (dealDetails.getSalePrice() > 0) {
+            updated.setSalePrice(dealDetails.getSalePrice());
+            updated.setCommission(dealDetails.getSalePrice() * COMMISSION_RATE);
+        }
+        if (dealDetails.getDate() != null) {
+            updated.setDate(dealDetails.getDate());
+        }
+        updated.setVersion(deal.getVersion() == null ? 1 : deal.getVersion() + 1);
+        return updated;
+    }
+    
+    private static boolean isBroker(User user) {
+        return "broker".equalsIgnoreCase(user.getRole());
+    }
+    
+    // Bulk form of updateDeal; every item needs an id. Broker, price and date edits of a batch go out as
+    // one bulkWrite, each guarded by the version the deal was read at. Items that change the status or
+    // the vehicle carry reservation side effects and go through updateDeal one at a time.
+    public BulkResultDto updateDeals(Iterator<Deal> deals) {
+        BulkResultDto result = new BulkResultDto();
+        bulkBatches.forEachBatch(deals, result, batch -> {
+            List<BulkBatches.Item<Deal>> fieldEdits = new ArrayList<>();
+            for (BulkBatches.Item<Deal> item : batch) {
+                Deal dealDetails = item.value();
+                if (dealDetails == null || dealDetails.getId() == null) {
+                    result.failure(item.index(), null, "id is required");
+                } else if (dealDetails.getStatus() != null || dealDetails.getVehicleId() != null) {
+                    updateItem(item, result);
+                } else {
+                    fieldEdits.add(item);
+                }
+            }
+            updateFieldsOf(fieldEdits, result);
+        });
+        return result.sorted();
+    }
+    
+    private void updateItem(BulkBatches.Item<Deal> item, BulkResultDto result) {
+        String id = item.value().getId();
+        try {
+            updateDeal(id, item.value());
+            result.success(item.index(), id, "updated");
+        } catch (RuntimeException e) {
+            // Not found, invalid broker or status, and conflicts all fail just this item
+            result.failure(item.index(), id, e.getMessage());
+        }
+    }
+    
+    private void updateFieldsOf(List<BulkBatches.Item<Deal>> items, BulkResultDto result) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<String> brokerIds = new HashSet<>();
+        items.forEach(item -> {
+            if (item.value().getBrokerId() != null) {
+                brokerIds.add(item.value().getBrokerId());
+            }
+        });
+        Map<String, User> brokers = new HashMap<>();
+        userRepository.findAllById(brokerIds).forEach(user -> brokers.put(user.getId(), user));
+        List<String> ids = items.stream().map(item -> item.value().getId()).toList();
+        Map<String, Deal> existing = new HashMap<>();
+        mongoTemplate.find(new Query(Criteria.where("_id").in(ids)), Deal.class)
+                .forEach(deal -> existing.put(deal.getId(), deal));
+        
+        List<BulkBatches.Item<Deal>> ready = new ArrayList<>();
+        List<Deal> previous = new ArrayList<>();
+        List<Deal> current = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Deal.class);
+        for (BulkBatches.Item<Deal> item : items) {
+            Deal dealDetails = item.value();
+            Deal deal = existing.get(dealDetails.getId());
+            User broker = dealDetails.getBrokerId() != null ? brokers.get(dealDetails.getBrokerId()) : null;
+            if (deal == null) {
+                result.failure(item.index(), dealDetails.getId(), "Deal not found");
+            } else if (!seen.add(deal.getId())) {
+                result.failure(item.index(), deal.getId(), "Deal repeated in the same batch");
+            } else if (dealDetails.getBrokerId() != null && (broker == null || !isBroker(broker))) {
+                result.failure(item.index(), deal.getId(), "Invalid broker");
+            } else {
+                bulk.updateOne(new Query(Criteria.where("_id").is(deal.getId()).and("version").is(deal.getVersion())),
+                        fieldUpdate(dealDetails));
+                ready.add(item);
+                previous.add(deal);
+                current.add(withFields(deal, dealDetails));
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
         }
         
-        return dealRepository.save(existingDeal);
+        Map<Integer, String> errors = BulkBatches.execute(bulk, ready.size());
+        // A version guard that matches nothing is not a bulkWrite error, so the versions are read back
+        Query written = new Query(Criteria.where("_id").in(current.stream().map(Deal::getId).toList()));
+        written.fields().include("version");
+        Map<String, Long> versions = new HashMap<>();
+        mongoTemplate.find(written, Deal.class).forEach(deal -> versions.put(deal.getId(), deal.getVersion()));
+        
+        List<Deal> updatedBefore = new ArrayList<>();
+        List<Deal> updatedAfter = new ArrayList<>();
+        for (int i = 0; i < ready.size(); i++) {
+            Deal after = current.get(i);
+            if (errors.containsKey(i)) {
+                result.failure(ready.get(i).index(), after.getId(), errors.get(i));
+            } else if (!Objects.equals(versions.get(after.getId()), after.getVersion())) {
+                result.failure(ready.get(i).index(), after.getId(), "Deal was modified concurrently");
+            } else {
+                result.success(ready.get(i).index(), after.getId(), "updated");
+                updatedBefore.add(previous.get(i));
+                updatedAfter.add(after);
+            }
+        }
+        if (!updatedAfter.isEmpty()) {
+            eventPublisher.publishEvent(DealChangedEvent.updated(updatedBefore, updatedAfter));
+        }
+    }
+    
+    // Bulk form of deleteDeal: per batch one read, one $in remove and one release of the vehicles the
+    // deleted deals still held
+    public BulkResultDto deleteDeals(Iterator<String> ids) {
+        BulkResultDto result = new BulkResultDto();
+        bulkBatches.forEachBatch(ids, result, batch -> {
+            List<String> batchIds = batch.stream().map(BulkBatches.Item::value).toList();
+            Map<String, Deal> existing = new HashMap<>();
+            mongoTemplate.find(new Query(Criteria.where("_id").in(batchIds)), Deal.class)
+                    .forEach(deal -> existing.put(deal.getId(), deal));
+            if (!existing.isEmpty()) {
+                mongoTemplate.remove(new Query(Criteria.where("_id").in(existing.keySet())), Deal.class);
+                vehicleReservationService.releaseAll(existing.keySet());
+            }
+            
+            List<Deal> deleted = new ArrayList<>();
+            for (BulkBatches.Item<String> item : batch) {
+                // Removed from the map so a repeated id is reported once as deleted
+                Deal deal = existing.remove(item.value());
+                if (deal == null) {
+                    result.failure(item.index(), item.value(), "Deal not found");
+                } else {
+                    result.success(item.index(), item.value(), "deleted");
+                    deleted.add(deal);
+                }
+            }
+            if (!deleted.isEmpty()) {
+                eventPublisher.publishEvent(DealChangedEvent.deleted(deleted));
+            }
+        });
+        return result.sorted();
     }
     
     public boolean deleteDeal(String id) {
-        if (dealRepository.existsById(id)) {
+        Optional<Deal> dealOpt = dealRepository.findById(id);
+        if (dealOpt.isPresent()) {
             dealRepository.deleteById(id);
+            vehicleReservationService.release(dealOpt.get().getVehicleId(), id);
+            eventPublisher.publishEvent(new DealChangedEvent(dealOpt.get(), null));
             return true;
         }
         return false;
     }
     
     public Deal approveDeal(String id) {
-        Optional<Deal> dealOpt = dealRepository.findById(id);
-        if (dealOpt.isEmpty()) {
-            throw new IllegalArgumentException("Deal not found");
-        }
-        
-        Deal deal = dealOpt.get();
-        deal.setStatus("approved");
-        return dealRepository.save(deal);
+        return updateDealStatus(id, "approved");
     }
     
     public Deal completeDeal(String id) {
-        Optional<Deal> dealOpt = dealRepository.findById(id);
-        if (dealOpt.isEmpty()) {
-            throw new IllegalArgumentException("Deal not found");
+        return updateDealStatus(id, "completed");
+    }
+    
+    public Deal rejectDeal(String id) {
+        return updateDealStatus(id, "rejected");
+    }
+    
+    public Deal updateDealStatus(String id, String status) {
+        return updateDealStatus(id, status, null);
+    }
+    
+    // The transition is the first and usually only deal write: one conditional findAndModify guarded by
+    // the allowed previous statuses and, when given, the expected version. Its pre-image carries the vehicle,
+    // whose side of the transition follows: a release, the Sold outbox, or a reservation change that undoes
+    // the transition when the vehicle has gone to another deal. Repeating a transition the deal already made
+    // returns it unchanged. Pending to completed is the exception: the expiring reservation is secured before
+    // the Sold marker is written, since the outbox sweep could otherwise sell a vehicle another deal now holds.
+    public Deal updateDealStatus(String id, String status, Long expectedVersion) {
+        Set<String> allowedFrom = ALLOWED_FROM.get(status);
+        if (allowedFrom == null) {
+            throw new IllegalArgumentException("Unknown deal status: " + status);
         }
+        Set<String> writeFirst = isCompleted(status) ? Set.of("approved") : allowedFrom;
         
-        Deal deal = dealOpt.get();
-        deal.setStatus("completed");
-        
-        // Update vehicle status to sold
-        updateVehicleStatus(deal.getVehicleId(), "Sold");
+        Deal previous = transition(id, status, writeFirst, expectedVersion);
+        if (previous == null) {
+            Deal latest = findDeal(id);
+            if (status.equals(latest.getStatus())) {
+                return latest;
+            }
+            if (!allowedFrom.contains(latest.getStatus()) || writeFirst.contains(latest.getStatus())) {
+                throw conflict(id, latest.getStatus(), status, expectedVersion);
+            }
+            vehicleReservationService.reserve(latest.getVehicleId(), id, false);
+            previous = transition(id, status, Set.of(latest.getStatus()), expectedVersion);
+            if (previous == null) {
+                latest = findDeal(id);
+                // Rejected meanwhile: its release may have run before the reservation above
+                if (!holdsVehicle(latest.getStatus())) {
+                    vehicleReservationService.release(latest.getVehicleId(), id);
+                }
+                throw conflict(id, latest.getStatus(), status, expectedVersion);
+            }
+        }
         
-        return dealRepository.save(deal);
+        Deal savedDeal = copyOf(previous);
+        savedDeal.setStatus(status);
+        savedDeal.setVersion(previous.getVersion() == null ? 1 : previous.getVersion() + 1);
+        if (isCompleted(status)) {
+            savedDeal.setPendingVehicleStatus(VEHICLE_SOLD);
+            dealOutbox.apply(savedDeal);
+        } else if (!holdsVehicle(status)) {
+            vehicleReservationService.release(savedDeal.getVehicleId(), id);
+        } else if (!holdsVehicle(previous.getStatus()) || isPending(previous.getStatus()) != isPending(status)) {
+            try {
+                vehicleReservationService.reserve(savedDeal.getVehicleId(), id, isPending(status));
+            } catch (RuntimeException e) {
+                mongoTemplate.updateFirst(
+                        new Query(Criteria.where("_id").is(id).and("version").is(savedDeal.getVersion())),
+                        new Update().set("status", previous.getStatus()).inc("version", 1), Deal.class);
+                throw e;
+            }
+        }
+        eventPublisher.publishEvent(new DealChangedEvent(previous, savedDeal));
+        return savedDeal;
     }
     
-    public Deal rejectDeal(String id) {
-        Optional<Deal> dealOpt = dealRepository.findById(id);
-        if (dealOpt.isEmpty()) {
-            throw new IllegalArgumentException("Deal not found");
+    // Returns the deal as it was before the update, or null when the guard did not match
+    private Deal transition(String id, String status, Set<String> from, Long expectedVersion) {
+        Criteria guard = Criteria.where("_id").is(id).and("status").in(from);
+        if (expectedVersion != null) {
+            guard.and("version").is(expectedVersion);
         }
-        
-        Deal deal = dealOpt.get();
-        deal.setStatus("rejected");
-        return dealRepository.save(deal);
+        Update update = new Update().set("status", status).inc("version", 1);
+        if (isCompleted(status)) {
+            update.set(DealOutbox.PENDING_VEHICLE_STATUS, VEHICLE_SOLD);
+        }
+        return mongoTemplate.findAndModify(new Query(guard), update, Deal.class);
+    }
+    
+    private static ConflictException conflict(String id, String from, String to, Long expectedVersion) {
+        return new ConflictException("Deal " + id + " cannot move from " + from + " to " + to
+                + (expectedVersion != null ? " at version " + expectedVersion : ""));
     }
     
     public List<Deal> getPendingDeals() {
@@ -191,12 +744,28 @@ public class DealService {
         return dealRepository.findByDateRange(startDate, endDate);
     }
     
-    private void updateVehicleStatus(String vehicleId, String status) {
-        Optional<Vehicle> vehicleOpt = vehicleRepository.findById(vehicleId);
-        if (vehicleOpt.isPresent()) {
-            Vehicle vehicle = vehicleOpt.get();
-            vehicle.setStatus(status);
-            vehicleRepository.save(vehicle);
-        }
+    private Deal findDeal(String id) {
+        return dealRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Deal not found"));
+    }
+    
+    // Pending, approved and completed deals keep their vehicle reserved (or sold)
+    private static boolean holdsVehicle(String status) {
+        return !"rejected".equalsIgnoreCase(status);
+    }
+    
+    private static boolean isPending(String status) {
+        return "pending".equalsIgnoreCase(status);
     }
+    
+    private static boolean isCompleted(String status) {
+        return "completed".equalsIgnoreCase(status);
+    }
+    
+    private Deal copyOf(Deal deal) {
+        Deal copy = new Deal();
+        BeanUtils.copyProperties(deal, copy);
+        return copy;
+    }
+
 }
@@ -0,0 +1,37 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.model.Deal;
+import com.example.rscarpoint.model.Vehicle;
+
+// Backfills the @Version field of vehicles and deals saved before it existed. Without it Spring Data
+// treats a loaded document as new and the next save() fails with a duplicate key instead of updating.
+@Service
+public class DocumentVersionMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        long migrated = backfill(Vehicle.class) + backfill(Deal.class);
+        if (migrated > 0) {
+            System.out.println("Backfilled version for " + migrated + " vehicles and deals.");
+        }
+    }
+
+    // Idempotent: only documents without a version are touched
+    public long backfill(Class<?> entityClass) {
+        return mongoTemplate.updateMulti(query(where("version").exists(false)),
+                new Update().set("version", 0L), entityClass).getModifiedCount();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.rscarpoint.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(name = "rscarpoint.images.store", havingValue = "filesystem")
+public class FileSystemImageStore implements ImageStore {
+
+    // Ids are generated UUIDs; anything else is rejected so ids can never escape the image directory
+    private static final Pattern IMAGE_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final String CONTENT_TYPE_SUFFIX = ".type";
+
+    private final Path directory;
+
+    public FileSystemImageStore(@Value("${rscarpoint.images.filesystem.path:./data/images}") String directory) throws IOException {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        Files.createDirectories(this.directory);
+    }
+
+    @Override
+    public String store(InputStream content, String contentType, String filename) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Files.copy(content, directory.resolve(id), StandardCopyOption.REPLACE_EXISTING);
+        Files.writeString(directory.resolve(id + CONTENT_TYPE_SUFFIX),
+                contentType != null ? contentType : "application/octet-stream", StandardCharsets.UTF_8);
+        return id;
+    }
+
+    @Override
+    public Optional<StoredImage> find(String imageId) {
+        if (imageId == null || !IMAGE_ID.matcher(imageId).matches()) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(imageId);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            Path typeFile = directory.resolve(imageId + CONTENT_TYPE_SUFFIX);
+            String contentType = Files.exists(typeFile)
+                    ? Files.readString(typeFile, StandardCharsets.UTF_8).trim()
+                    : "application/octet-stream";
+            return Optional.of(new StoredImage(
+                    imageId,
+                    contentType,
+                    Files.size(file),
+                    Files.getLastModifiedTime(file).toMillis(),
+                    () -> Files.newInputStream(file)));
+        } catch (IOException e) {
+            System.err.println("Error reading image " + imageId + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(String imageId) {
+        if (imageId == null || !IMAGE_ID.matcher(imageId).matches()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(imageId));
+            Files.deleteIfExists(directory.resolve(imageId + CONTENT_TYPE_SUFFIX));
+        } catch (IOException e) {
+            System.err.println("Error deleting image " + imageId + ": " + e.getMessage());
+        }
+    }
+}
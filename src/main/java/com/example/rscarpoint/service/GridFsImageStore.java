@@ -0,0 +1,57 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+@Service
+@ConditionalOnProperty(name = "rscarpoint.images.store", havingValue = "gridfs", matchIfMissing = true)
+public class GridFsImageStore implements ImageStore {
+
+    @Autowired
+    private GridFsTemplate gridFsTemplate;
+
+    @Override
+    public String store(InputStream content, String contentType, String filename) throws IOException {
+        ObjectId id = gridFsTemplate.store(content, filename, contentType);
+        return id.toHexString();
+    }
+
+    @Override
+    public Optional<StoredImage> find(String imageId) {
+        if (!ObjectId.isValid(imageId)) {
+            return Optional.empty();
+        }
+        GridFSFile file = gridFsTemplate.findOne(query(where("_id").is(new ObjectId(imageId))));
+        if (file == null) {
+            return Optional.empty();
+        }
+        Document metadata = file.getMetadata();
+        String contentType = metadata != null ? metadata.getString("_contentType") : null;
+        return Optional.of(new StoredImage(
+                imageId,
+                contentType != null ? contentType : "application/octet-stream",
+                file.getLength(),
+                file.getUploadDate().getTime(),
+                () -> gridFsTemplate.getResource(file).getInputStream()));
+    }
+
+    @Override
+    public void delete(String imageId) {
+        if (ObjectId.isValid(imageId)) {
+            gridFsTemplate.delete(query(where("_id").is(new ObjectId(imageId))));
+        }
+    }
+}
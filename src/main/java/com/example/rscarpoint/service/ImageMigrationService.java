@@ -0,0 +1,111 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.event.VehicleChangedEvent;
+
+// One-time move of legacy Vehicle.imageBase64 payloads into the ImageStore
+@Service
+public class ImageMigrationService {
+
+    private static final String VEHICLES = "vehicles";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${rscarpoint.images.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        if (migrateOnStartup) {
+            int migrated = migrateBase64Images();
+            if (migrated > 0) {
+                System.out.println("Migrated " + migrated + " vehicle images to the image store.");
+            }
+        }
+    }
+
+    // Idempotent: only documents that still carry imageBase64 are picked up
+    public int migrateBase64Images() {
+        Query legacy = query(where("imageBase64").exists(true));
+        legacy.fields().include("_id").include("imageBase64");
+
+        int migrated = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(legacy, Document.class, VEHICLES)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                Object id = document.get("_id");
+                String base64 = document.getString("imageBase64");
+                String imageId = null;
+                try {
+                    Update update = new Update().unset("imageBase64").inc("version", 1);
+                    if (base64 != null && !base64.isEmpty()) {
+                        byte[] bytes = Base64.getDecoder().decode(base64);
+                        imageId = imageStore.store(new ByteArrayInputStream(bytes),
+                                guessContentType(bytes), id + ".img");
+                        update.set("imageId", imageId);
+                    }
+                    // Matches nothing if the vehicle was deleted or migrated elsewhere since it was read
+                    long matched = mongoTemplate.updateFirst(query(where("_id").is(id).and("imageBase64").exists(true)),
+                            update, VEHICLES).getMatchedCount();
+                    if (matched == 0) {
+                        deleteQuietly(imageId);
+                        continue;
+                    }
+                    migrated++;
+                } catch (IllegalArgumentException | IOException e) {
+                    System.err.println("Error migrating image for vehicle " + id + ": " + e.getMessage());
+                } catch (RuntimeException e) {
+                    // The stored copy is unreferenced; the next run stores the image again
+                    deleteQuietly(imageId);
+                    System.err.println("Error migrating image for vehicle " + id + ": " + e.getMessage());
+                }
+            }
+        }
+        if (migrated > 0) {
+            eventPublisher.publishEvent(VehicleChangedEvent.allVehicles());
+        }
+        return migrated;
+    }
+
+    private void deleteQuietly(String imageId) {
+        if (imageId == null) {
+            return;
+        }
+        try {
+            imageStore.delete(imageId);
+        } catch (Exception e) {
+            System.err.println("Error deleting orphaned image " + imageId + ": " + e.getMessage());
+        }
+    }
+
+    private String guessContentType(byte[] bytes) throws IOException {
+        String contentType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(bytes));
+        // The frontend always rendered these as data:image/jpeg
+        return contentType != null ? contentType : "image/jpeg";
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.rscarpoint.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Binary storage for vehicle images. Vehicles only keep the id returned by
+ * {@link #store}; the bytes live in GridFS or on the local filesystem
+ * depending on {@code rscarpoint.images.store}.
+ */
+public interface ImageStore {
+
+    String store(InputStream content, String contentType, String filename) throws IOException;
+
+    Optional<StoredImage> find(String imageId);
+
+    void delete(String imageId);
+}
@@ -0,0 +1,137 @@
+package com.example.rscarpoint.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.model.Deal;
+import com.example.rscarpoint.model.DealRollup;
+import com.example.rscarpoint.model.User;
+import com.example.rscarpoint.model.Vehicle;
+
+@Service
+public class IndexManagementService {
+
+    // Entities whose @Indexed/@CompoundIndex/@TextIndexed declarations are managed here
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(Vehicle.class, Deal.class, User.class, DealRollup.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Value("${rscarpoint.mongo.ensure-indexes:true}")
+    private boolean ensureIndexesOnStartup;
+
+    // Runs before the CommandLineRunners so seeding and the first queries are already index-backed
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        if (ensureIndexesOnStartup) {
+            ensureIndexes();
+        }
+    }
+
+    public Map<String, List<String>> ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        Map<String, List<String>> failures = new LinkedHashMap<>();
+
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity)) {
+                try {
+                    indexOps.createIndex(definition);
+                } catch (Exception e) {
+                    // e.g. duplicate emails in existing data prevent the unique index from being built
+                    String collection = mongoTemplate.getCollectionName(entity);
+                    System.err.println("Error creating index " + definition.getIndexKeys() + " on "
+                            + collection + ": " + e.getMessage());
+                    failures.computeIfAbsent(collection, key -> new ArrayList<>())
+                            .add(indexName(definition) + ": " + e.getMessage());
+                }
+            }
+        }
+        return failures;
+    }
+
+    // Compares declared indexes with the ones present in MongoDB and their $indexStats usage counters
+    public List<Map<String, Object>> getIndexReport() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        List<Map<String, Object>> report = new ArrayList<>();
+
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            String collection = mongoTemplate.getCollectionName(entity);
+
+            Set<String> declared = new LinkedHashSet<>();
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity)) {
+                declared.add(indexName(definition));
+            }
+
+            Set<String> existing = new LinkedHashSet<>();
+            for (IndexInfo info : mongoTemplate.indexOps(entity).getIndexInfo()) {
+                existing.add(info.getName());
+            }
+
+            Map<String, Long> usage = new LinkedHashMap<>();
+            for (Document stats : mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))) {
+                Document accesses = stats.get("accesses", Document.class);
+                Number ops = accesses != null ? accesses.get("ops", Number.class) : null;
+                usage.put(stats.getString("name"), ops != null ? ops.longValue() : 0L);
+            }
+
+            List<String> missing = new ArrayList<>();
+            for (String name : declared) {
+                if (!existing.contains(name)) {
+                    missing.add(name);
+                }
+            }
+
+            List<String> unused = new ArrayList<>();
+            List<String> undeclared = new ArrayList<>();
+            for (String name : existing) {
+                if ("_id_".equals(name)) {
+                    continue;
+                }
+                if (usage.getOrDefault(name, 0L) == 0L) {
+                    unused.add(name);
+                }
+                if (!declared.contains(name)) {
+                    undeclared.add(name);
+                }
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("collection", collection);
+            entry.put("declared", declared);
+            entry.put("existing", existing);
+            entry.put("missing", missing);
+            entry.put("unused", unused); // zero accesses since the last mongod restart
+            entry.put("undeclared", undeclared);
+            entry.put("usage", usage);
+            report.add(entry);
+        }
+        return report;
+    }
+
+    private String indexName(IndexDefinition definition) {
+        Object name = definition.getIndexOptions().get("name");
+        return name != null ? name.toString() : definition.getIndexKeys().toJson();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.model.User;
+
+import jakarta.annotation.PreDestroy;
+
+// Collects successful logins in memory and writes User.lastLogin in one unordered bulk write per
+// flush, so the login response never waits on that update. Repeat logins between flushes collapse.
+@Service
+public class LastLoginRecorder {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+    public void record(String userId) {
+        if (userId != null) {
+            pending.put(userId, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rscarpoint.users.last-login-flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, String>> batch = new ArrayList<>();
+        for (String userId : pending.keySet()) {
+            String lastLogin = pending.remove(userId);
+            if (lastLogin != null) {
+                batch.add(Map.entry(userId, lastLogin));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (Map.Entry<String, String> entry : batch) {
+                bulk.updateOne(query(where("_id").is(entry.getKey())), new Update().set("lastLogin", entry.getValue()));
+            }
+            bulk.execute();
+        } catch (Exception e) {
+            System.err.println("Error writing lastLogin for " + batch.size() + " users: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.rscarpoint.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.InputStreamSource;
+
+// A stored image exposed as a re-readable Resource so Spring MVC can serve Range requests from it
+public class StoredImage extends AbstractResource {
+    private final String id;
+    private final String contentType;
+    private final long contentLength;
+    private final long lastModified;
+    private final InputStreamSource source;
+
+    public StoredImage(String id, String contentType, long contentLength, long lastModified, InputStreamSource source) {
+        this.id = id;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.lastModified = lastModified;
+        this.source = source;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        // Opens a fresh stream on every call
+        return source.getInputStream();
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Stored image [" + id + "]";
+    }
+}
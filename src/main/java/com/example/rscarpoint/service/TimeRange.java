@@ -0,0 +1,98 @@
+package com.example.rscarpoint.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+// Inclusive date window for the analytics timeRange parameter; a null bound is open-ended
+public class TimeRange {
+    private static final Pattern RELATIVE_RANGE = Pattern.compile("([1-9][0-9]{0,2})(day|week|month|year)s?");
+
+    private final LocalDate start;
+    private final LocalDate end;
+
+    public TimeRange(LocalDate start, LocalDate end) {
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException("Time range start must not be after its end");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    // Explicit from/to dates take precedence over the relative timeRange
+    public static TimeRange resolve(String timeRange, LocalDate from, LocalDate to, LocalDate today) {
+        if (from != null || to != null) {
+            return new TimeRange(from, to != null ? to : today);
+        }
+        return parse(timeRange, today);
+    }
+
+    // Accepts <n>days|weeks|months|years (e.g. 1month, 6months, 2years) ending today, or all
+    public static TimeRange parse(String timeRange, LocalDate today) {
+        String value = timeRange == null ? "1year" : timeRange.trim().toLowerCase();
+        if ("all".equals(value)) {
+            return new TimeRange(null, null);
+        }
+        Matcher matcher = RELATIVE_RANGE.matcher(value);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unsupported timeRange '" + timeRange
+                    + "', expected e.g. 1month, 3months, 6months, 1year, 2years or all");
+        }
+        int amount = Integer.parseInt(matcher.group(1));
+        LocalDate start;
+        switch (matcher.group(2)) {
+            case "day":
+                start = today.minusDays(amount);
+                break;
+            case "week":
+                start = today.minusWeeks(amount);
+                break;
+            case "month":
+                start = today.minusMonths(amount);
+                break;
+            default:
+                start = today.minusYears(amount);
+                break;
+        }
+        return new TimeRange(start.plusDays(1), today);
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    public boolean isBounded() {
+        return start != null && end != null;
+    }
+
+    // The window of the same length immediately before this one, used for growth rates
+    public TimeRange previous() {
+        if (!isBounded()) {
+            throw new IllegalStateException("An open time range has no previous period");
+        }
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        return new TimeRange(start.minusDays(days), start.minusDays(1));
+    }
+
+    // Deal.date is stored as an ISO yyyy-MM-dd string, so lexical comparison is chronological
+    public Criteria toCriteria(String field) {
+        if (start == null && end == null) {
+            return new Criteria();
+        }
+        Criteria criteria = Criteria.where(field);
+        if (start != null) {
+            criteria = criteria.gte(start.toString());
+        }
+        if (end != null) {
+            criteria = criteria.lte(end.toString());
+        }
+        return criteria;
+    }
+}
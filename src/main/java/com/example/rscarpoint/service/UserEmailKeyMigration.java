@@ -0,0 +1,62 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.model.User;
+
+// Backfills User.emailKey for users saved before the key existed, so they can log in by point read
+@Service
+public class UserEmailKeyMigration {
+
+    private static final String USERS = "users";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        int migrated = backfillEmailKeys();
+        if (migrated > 0) {
+            System.out.println("Backfilled emailKey for " + migrated + " users.");
+        }
+    }
+
+    // Idempotent: only users with an email but no emailKey are picked up
+    public int backfillEmailKeys() {
+        Query missing = query(where("emailKey").exists(false).and("email").exists(true));
+        missing.fields().include("_id").include("email");
+
+        int migrated = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(missing, Document.class, USERS)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                Object id = document.get("_id");
+                String email = document.getString("email");
+                if (email == null) {
+                    continue;
+                }
+                try {
+                    mongoTemplate.updateFirst(query(where("_id").is(id)),
+                            new Update().set("emailKey", User.normalizeEmail(email)), USERS);
+                    migrated++;
+                } catch (DuplicateKeyException e) {
+                    // Two accounts differ only by case or whitespace; one has to be merged by hand
+                    System.err.println("Duplicate email for user " + id + ": " + email);
+                }
+            }
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.rscarpoint.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.rscarpoint.event.VehicleChangedEvent;
+import com.example.rscarpoint.exception.ConflictException;
+import com.example.rscarpoint.model.Deal;
+import com.example.rscarpoint.model.Vehicle;
+import com.example.rscarpoint.repository.VehicleRepository;
+
+// Vehicle.status doubles as the lock that keeps two deals from selling the same vehicle. A deal takes
+// the vehicle with one conditional update from Available to Reserved; pending deals hold it until
+// reservedUntil, approved and completed deals hold it without expiry (completion then marks it Sold).
+@Service
+public class VehicleReservationService {
+
+    public static final String AVAILABLE = "Available";
+    public static final String RESERVED = "Reserved";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${rscarpoint.reservations.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // Idempotent for the deal already holding the vehicle; expiring=false removes any expiry.
+    // Returns the reserved vehicle with only its make loaded, which the deal records for its rollup bucket.
+    public Vehicle reserve(String vehicleId, String dealId, boolean expiring) {
+        Criteria claimable = where("_id").is(vehicleId)
+                .orOperator(where("status").is(AVAILABLE), where("reservedBy").is(dealId));
+        Update update = new Update().set("status", RESERVED).set("reservedBy", dealId).inc("version", 1);
+        if (expiring) {
+            update.set("reservedUntil", Instant.now().plus(Duration.ofMinutes(ttlMinutes)));
+        } else {
+            update.unset("reservedUntil");
+        }
+
+        Query reservable = query(claimable);
+        reservable.fields().include("make");
+        Vehicle reserved = mongoTemplate.findAndModify(reservable, update, Vehicle.class);
+        if (reserved == null) {
+            if (!vehicleRepository.existsById(vehicleId)) {
+                throw new IllegalArgumentException("Vehicle not found");
+            }
+            throw new ConflictException("Vehicle " + vehicleId + " is not available");
+        }
+        eventPublisher.publishEvent(VehicleChangedEvent.statusChanged(vehicleId));
+        return reserved;
+    }
+
+    // Bulk form of reserve: one unordered bulkWrite, then one read to see which deals got their vehicle.
+    // Returns the ids of those deals; two deals on the same vehicle cannot both win.
+    public Set<String> reserveAll(List<Deal> deals) {
+        if (deals.isEmpty()) {
+            return Set.of();
+        }
+        Instant expiry = Instant.now().plus(Duration.ofMinutes(ttlMinutes));
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Vehicle.class);
+        for (Deal deal : deals) {
+            Update update = new Update().set("status", RESERVED).set("reservedBy", deal.getId()).inc("version", 1);
+            if ("pending".equalsIgnoreCase(deal.getStatus())) {
+                update.set("reservedUntil", expiry);
+            } else {
+                update.unset("reservedUntil");
+            }
+            bulk.updateOne(query(where("_id").is(deal.getVehicleId())
+                    .orOperator(where("status").is(AVAILABLE), where("reservedBy").is(deal.getId()))), update);
+        }
+        BulkBatches.execute(bulk, deals.size());
+
+        Query won = query(where("reservedBy").in(deals.stream().map(Deal::getId).toList()));
+        won.fields().include("reservedBy");
+        Set<String> holders = new HashSet<>();
+        // One event per reserved vehicle, so caches and the inventory snapshot patch just those entries
+        for (Vehicle vehicle : mongoTemplate.find(won, Vehicle.class)) {
+            holders.add(vehicle.getReservedBy());
+            eventPublisher.publishEvent(VehicleChangedEvent.statusChanged(vehicle.getId()));
+        }
+        return holders;
+    }
+
+    // Only releases a reservation the deal still holds
+    public boolean release(String vehicleId, String dealId) {
+        return releaseIf(where("_id").is(vehicleId).and("status").is(RESERVED).and("reservedBy").is(dealId),
+                vehicleId);
+    }
+
+    // Bulk form of release: one read for the vehicles the deals still hold, then one updateMulti.
+    // Returns the number of vehicles released.
+    public long releaseAll(Collection<String> dealIds) {
+        if (dealIds.isEmpty()) {
+            return 0;
+        }
+        Criteria held = where("status").is(RESERVED).and("reservedBy").in(dealIds);
+        Query heldVehicles = query(held);
+        heldVehicles.fields().include("_id");
+        List<Vehicle> vehicles = mongoTemplate.find(heldVehicles, Vehicle.class);
+        if (vehicles.isEmpty()) {
+            return 0;
+        }
+        Update update = new Update().set("status", AVAILABLE).unset("reservedBy").unset("reservedUntil")
+                .inc("version", 1);
+        long released = mongoTemplate.updateMulti(query(held), update, Vehicle.class).getModifiedCount();
+        vehicles.forEach(vehicle -> eventPublisher.publishEvent(VehicleChangedEvent.statusChanged(vehicle.getId())));
+        return released;
+    }
+
+    // Expired reservations of deals nobody approved in time go back to Available
+    @Scheduled(fixedDelayString = "${rscarpoint.reservations.sweep-ms:60000}")
+    public int releaseExpired() {
+        int released = 0;
+        try {
+            Query expired = query(where("status").is(RESERVED).and("reservedUntil").lt(Instant.now()));
+            expired.fields().include("_id").include("reservedBy").include("reservedUntil");
+            List<Vehicle> vehicles = mongoTemplate.find(expired, Vehicle.class);
+            for (Vehicle vehicle : vehicles) {
+                // Guarded by the values just read, so a reservation renewed meanwhile is kept
+                Criteria unchanged = where("_id").is(vehicle.getId()).and("status").is(RESERVED)
+                        .and("reservedBy").is(vehicle.getReservedBy())
+                        .and("reservedUntil").is(vehicle.getReservedUntil());
+                if (releaseIf(unchanged, vehicle.getId())) {
+                    released++;
+                }
+            }
+            if (released > 0) {
+                System.out.println("Released " + released + " expired vehicle reservations.");
+            }
+        } catch (Exception e) {
+            System.err.println("Error releasing expired reservations: " + e.getMessage());
+        }
+        return released;
+    }
+
+    private boolean releaseIf(Criteria criteria, String vehicleId) {
+        Update update = new Update().set("status", AVAILABLE).unset("reservedBy").unset("reservedUntil")
+                .inc("version", 1);
+        if (mongoTemplate.updateFirst(query(criteria), update, Vehicle.class).getModifiedCount() == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(VehicleChangedEvent.statusChanged(vehicleId));
+        return true;
+    }
+}
@@ -1,26 +1,98 @@
 package com.example.rscarpoint.service;
 
+import com.example.rscarpoint.cache.VehicleCache;
+import com.example.rscarpoint.dto.BulkResultDto;
+import com.example.rscarpoint.dto.CursorPageDto;
+import com.example.rscarpoint.dto.SuggestionDto;
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleFacetsDto;
 import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.event.VehicleChangedEvent;
 import com.example.rscarpoint.model.Vehicle;
+import com.example.rscarpoint.repository.KeysetPager;
+import com.example.rscarpoint.repository.KeysetSort;
+import com.example.rscarpoint.repository.VehicleQueryBuilder;
 import com.example.rscarpoint.repository.VehicleRepository;
+import com.example.rscarpoint.search.InventorySnapshot;
+import com.example.rscarpoint.search.VehicleSearchIndex;
+import com.example.rscarpoint.search.VehicleSuggestIndex;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class VehicleService {
     
+    private static final String FULL_VIEW = "full";
+    private static final String CARD_VIEW = "card";
+    
+    // Keyset sort options for paged listings, see KeysetPager
+    public static final Map<String, KeysetSort<Vehicle>> SORTS = Map.of(
+        "id", new KeysetSort<>("_id", Vehicle::getId),
+        "price", new KeysetSort<>("price", Vehicle::getPrice),
+        "year", new KeysetSort<>("year", Vehicle::getYear),
+        "mileage", new KeysetSort<>("mileage", Vehicle::getMileage)
+    );
+    
     @Autowired
     private VehicleRepository vehicleRepository;
     
+    @Autowired
+    private KeysetPager keysetPager;
+    
+    @Autowired
+    private VehicleCache vehicleCache;
+    
+    @Autowired
+    private ImageStore imageStore;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private BulkBatches bulkBatches;
+    
+    @Autowired
+    private VehicleSearchIndex vehicleSearchIndex;
+    
+    @Autowired
+    private VehicleSuggestIndex vehicleSuggestIndex;
+    
+    @Autowired
+    private InventorySnapshot inventorySnapshot;
+    
     public List<Vehicle> getAllVehicles() {
-        return vehicleRepository.findAll();
+        return searchVehicles(new VehicleSearchDto());
     }
     
+    public List<VehicleCardDto> getVehicleCards() {
+        return searchVehicleCards(new VehicleSearchDto());
+    }
+    
+    // Cached; callers must not modify the returned vehicle, writes load their own copy
     public Optional<Vehicle> getVehicleById(String id) {
-        return vehicleRepository.findById(id);
+        return vehicleCache.getVehicle(id, () -> vehicleRepository.findById(id));
     }
     
     public Vehicle saveVehicle(Vehicle vehicle) {
@@ -28,44 +100,258 @@ public class VehicleService {
         if (vehicle.getStatus() == null || vehicle.getStatus().trim().isEmpty()) {
             vehicle.setStatus("Available");
         }
-        return vehicleRepository.save(vehicle);
+        // Reservations are only made through VehicleReservationService
+        vehicle.setReservedBy(null);
+        vehicle.setReservedUntil(null);
+        Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        eventPublisher.publishEvent(new VehicleChangedEvent(savedVehicle.getId()));
+        return savedVehicle;
+    }
+    
+    // Required fields of a new vehicle, shared by POST /api/vehicles and the bulk import; null when valid
+    public static String validateNewVehicle(Vehicle vehicle) {
+        if (vehicle == null || vehicle.getMake() == null || vehicle.getMake().trim().isEmpty() ||
+            vehicle.getModel() == null || vehicle.getModel().trim().isEmpty() ||
+            vehicle.getYear() <= 1900 || vehicle.getPrice() <= 0) {
+            return "make, model, year after 1900 and a positive price are required";
+        }
+        return null;
+    }
+    
+    // Applies the non-empty fields of vehicleDetails in one findAndModify; empty when the vehicle does not exist
+    public Optional<Vehicle> updateVehicle(String id, Vehicle vehicleDetails) {
+        Vehicle updatedVehicle = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)),
+                changesOf(vehicleDetails), FindAndModifyOptions.options().returnNew(true), Vehicle.class);
+        if (updatedVehicle == null) {
+            return Optional.empty();
+        }
+        eventPublisher.publishEvent(new VehicleChangedEvent(id));
+        return Optional.of(updatedVehicle);
+    }
+    
+    // The fields an update may change, shared by PUT /api/vehicles/{id} and the bulk update
+    private static Update changesOf(Vehicle vehicleDetails) {
+        Update update = new Update().inc("version", 1);
+        if (vehicleDetails.getMake() != null && !vehicleDetails.getMake().trim().isEmpty()) {
+            update.set("make", vehicleDetails.getMake());
+        }
+        if (vehicleDetails.getModel() != null && !vehicleDetails.getModel().trim().isEmpty()) {
+            update.set("model", vehicleDetails.getModel());
+        }
+        if (vehicleDetails.getYear() > 1900) {
+            update.set("year", vehicleDetails.getYear());
+        }
+        if (vehicleDetails.getPrice() > 0) {
+            update.set("price", vehicleDetails.getPrice());
+        }
+        if (vehicleDetails.getMileage() >= 0) {
+            update.set("mileage", vehicleDetails.getMileage());
+        }
+        if (vehicleDetails.getFuelType() != null) {
+            update.set("fuelType", vehicleDetails.getFuelType());
+        }
+        if (vehicleDetails.getTransmission() != null) {
+            update.set("transmission", vehicleDetails.getTransmission());
+        }
+        if (vehicleDetails.getEngineCapacity() != null) {
+            update.set("engineCapacity", vehicleDetails.getEngineCapacity());
+        }
+        if (vehicleDetails.getManufactureDate() != null) {
+            update.set("manufactureDate", vehicleDetails.getManufactureDate());
+        }
+        if (vehicleDetails.getDescription() != null) {
+            update.set("description", vehicleDetails.getDescription());
+        }
+        if (vehicleDetails.getStatus() != null) {
+            update.set("status", vehicleDetails.getStatus());
+        }
+        return update;
+    }
+    
+    // Bulk import: same validation and defaults as saveVehicle, inserted with unordered bulkWrites
+    public BulkResultDto createVehicles(Iterator<Vehicle> vehicles) {
+        BulkResultDto result = new BulkResultDto();
+        bulkBatches.forEachBatch(vehicles, result, batch -> {
+            List<BulkBatches.Item<Vehicle>> valid = new ArrayList<>();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Vehicle.class);
+            for (BulkBatches.Item<Vehicle> item : batch) {
+                Vehicle vehicle = item.value();
+                String error = validateNewVehicle(vehicle);
+                if (error != null) {
+                    result.failure(item.index(), null, error);
+                    continue;
+                }
+                // Ids are assigned here so every result can name its vehicle without reading it back
+                vehicle.setId(new ObjectId().toHexString());
+                vehicle.setVersion(0L);
+                vehicle.setReservedBy(null);
+                vehicle.setReservedUntil(null);
+                if (vehicle.getStatus() == null || vehicle.getStatus().trim().isEmpty()) {
+                    vehicle.setStatus("Available");
+                }
+                bulk.insert(vehicle);
+                valid.add(item);
+            }
+            if (valid.isEmpty()) {
+                return;
+            }
+            Map<Integer, String> errors = BulkBatches.execute(bulk, valid.size());
+            for (int i = 0; i < valid.size(); i++) {
+                BulkBatches.Item<Vehicle> item = valid.get(i);
+                if (errors.containsKey(i)) {
+                    result.failure(item.index(), item.value().getId(), errors.get(i));
+                } else {
+                    result.success(item.index(), item.value().getId(), "created");
+                }
+            }
+        });
+        if (result.getSucceeded() > 0) {
+            eventPublisher.publishEvent(VehicleChangedEvent.allVehicles());
+        }
+        return result.sorted();
+    }
+    
+    // Bulk form of updateVehicle: every item needs an id, the rest follows the same field rules
+    public BulkResultDto updateVehicles(Iterator<Vehicle> vehicles) {
+        BulkResultDto result = new BulkResultDto();
+        bulkBatches.forEachBatch(vehicles, result, batch -> {
+            List<BulkBatches.Item<Vehicle>> withId = new ArrayList<>();
+            for (BulkBatches.Item<Vehicle> item : batch) {
+                if (item.value() == null || item.value().getId() == null) {
+                    result.failure(item.index(), null, "id is required");
+                } else {
+                    withId.add(item);
+                }
+            }
+            if (withId.isEmpty()) {
+                return;
+            }
+            Set<String> existing = BulkBatches.existingIds(mongoTemplate,
+                    withId.stream().map(item -> item.value().getId()).toList(), Vehicle.class);
+            List<BulkBatches.Item<Vehicle>> found = new ArrayList<>();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Vehicle.class);
+            for (BulkBatches.Item<Vehicle> item : withId) {
+                if (!existing.contains(item.value().getId())) {
+                    result.failure(item.index(), item.value().getId(), "Vehicle not found");
+                    continue;
+                }
+                bulk.updateOne(new Query(Criteria.where("_id").is(item.value().getId())), changesOf(item.value()));
+                found.add(item);
+            }
+            if (found.isEmpty()) {
+                return;
+            }
+            Map<Integer, String> errors = BulkBatches.execute(bulk, found.size());
+            for (int i = 0; i < found.size(); i++) {
+                BulkBatches.Item<Vehicle> item = found.get(i);
+                if (errors.containsKey(i)) {
+                    result.failure(item.index(), item.value().getId(), errors.get(i));
+                } else {
+                    result.success(item.index(), item.value().getId(), "updated");
+                }
+            }
+        });
+        if (result.getSucceeded() > 0) {
+            eventPublisher.publishEvent(VehicleChangedEvent.allVehicles());
+        }
+        return result.sorted();
+    }
+    
+    // Bulk form of deleteVehicle; the images of the deleted vehicles are removed as well
+    public BulkResultDto deleteVehicles(Iterator<String> ids) {
+        BulkResultDto result = new BulkResultDto();
+        bulkBatches.forEachBatch(ids, result, batch -> {
+            List<String> batchIds = batch.stream().map(BulkBatches.Item::value).toList();
+            Query withImages = new Query(Criteria.where("_id").in(batchIds));
+            withImages.fields().include("_id").include("imageId");
+            Map<String, Vehicle> existing = new HashMap<>();
+            mongoTemplate.find(withImages, Vehicle.class).forEach(vehicle -> existing.put(vehicle.getId(), vehicle));
+            
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(existing.keySet())), Vehicle.class);
+            for (BulkBatches.Item<String> item : batch) {
+                // Removed from the map so a repeated id is not deleted, and its image not dropped, twice
+                Vehicle vehicle = existing.remove(item.value());
+                if (vehicle == null) {
+                    result.failure(item.index(), item.value(), "Vehicle not found");
+                    continue;
+                }
+                if (vehicle.getImageId() != null) {
+                    imageStore.delete(vehicle.getImageId());
+                }
+                result.success(item.index(), item.value(), "deleted");
+            }
+        });
+        if (result.getSucceeded() > 0) {
+            eventPublisher.publishEvent(VehicleChangedEvent.allVehicles());
+        }
+        return result.sorted();
     }
     
+    // Also removes the vehicle's image from the ImageStore
     public boolean deleteVehicle(String id) {
-        if (vehicleRepository.existsById(id)) {
-            vehicleRepository.deleteById(id);
-            return true;
+        Optional<Vehicle> vehicle = vehicleRepository.findImageRefById(id);
+        if (vehicle.isEmpty()) {
+            return false;
+        }
+        vehicleRepository.deleteById(id);
+        if (vehicle.get().getImageId() != null) {
+            imageStore.delete(vehicle.get().getImageId());
+        }
+        eventPublisher.publishEvent(new VehicleChangedEvent(id));
+        return true;
+    }
+    
+    // Stores the new image, points the vehicle at it and drops the previous one
+    public Optional<Vehicle> replaceImage(String id, InputStream content, String contentType, String filename)
+            throws IOException {
+        Optional<Vehicle> vehicleOptional = vehicleRepository.findById(id);
+        if (vehicleOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        Vehicle vehicle = vehicleOptional.get();
+        String previousImageId = vehicle.getImageId();
+        vehicle.setImageId(imageStore.store(content, contentType, filename));
+        Vehicle updatedVehicle = vehicleRepository.save(vehicle);
+        if (previousImageId != null) {
+            imageStore.delete(previousImageId);
         }
-        return false;
+        eventPublisher.publishEvent(new VehicleChangedEvent(id));
+        return Optional.of(updatedVehicle);
     }
     
     public List<Vehicle> searchVehicles(VehicleSearchDto searchDto) {
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        
-        return vehicles.stream()
-            .filter(vehicle -> searchDto.getMake() == null || 
-                vehicle.getMake().toLowerCase().contains(searchDto.getMake().toLowerCase()))
-            .filter(vehicle -> searchDto.getModel() == null || 
-                vehicle.getModel().toLowerCase().contains(searchDto.getModel().toLowerCase()))
-            .filter(vehicle -> searchDto.getFuelType() == null || 
-                vehicle.getFuelType().toLowerCase().contains(searchDto.getFuelType().toLowerCase()))
-            .filter(vehicle -> searchDto.getTransmission() == null || 
-                vehicle.getTransmission().toLowerCase().contains(searchDto.getTransmission().toLowerCase()))
-            .filter(vehicle -> searchDto.getMinPrice() == null || 
-                vehicle.getPrice() >= searchDto.getMinPrice())
-            .filter(vehicle -> searchDto.getMaxPrice() == null || 
-                vehicle.getPrice() <= searchDto.getMaxPrice())
-            .filter(vehicle -> searchDto.getMinYear() == null || 
-                vehicle.getYear() >= searchDto.getMinYear())
-            .filter(vehicle -> searchDto.getMaxYear() == null || 
-                vehicle.getYear() <= searchDto.getMaxYear())
-            .filter(vehicle -> searchDto.getMinMileage() == null || 
-                vehicle.getMileage() >= searchDto.getMinMileage())
-            .filter(vehicle -> searchDto.getMaxMileage() == null || 
-                vehicle.getMileage() <= searchDto.getMaxMileage())
-            .filter(vehicle -> searchDto.getStatus() == null || 
-                vehicle.getStatus().equalsIgnoreCase(searchDto.getStatus()))
-            .collect(Collectors.toList());
+        // Filtering is pushed down to MongoDB, see VehicleQueryBuilder
+        return vehicleCache.getList(FULL_VIEW, searchDto, () -> vehicleRepository.search(searchDto),
+                VehicleCache::weigh);
+    }
+    
+    // Answered from the in-memory InventorySnapshot once it is loaded, otherwise from MongoDB
+    public List<VehicleCardDto> searchVehicleCards(VehicleSearchDto searchDto) {
+        Optional<List<VehicleCardDto>> fromSnapshot = inventorySnapshot.search(searchDto);
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
+        return vehicleCache.getList(CARD_VIEW, searchDto, () -> vehicleRepository.searchCards(searchDto),
+                VehicleCache::weigh);
+    }
+    
+    // Sidebar counts are small and filter-specific, so they are aggregated on every request rather than cached
+    public VehicleFacetsDto getVehicleFacets(VehicleSearchDto searchDto) {
+        return vehicleRepository.facets(searchDto);
+    }
+    
+    public CursorPageDto<Vehicle> searchVehiclePage(VehicleSearchDto searchDto, String sort, String direction,
+                                                    String cursor, Integer size) {
+        return keysetPager.page(VehicleQueryBuilder.toQuery(searchDto), Vehicle.class,
+                KeysetSort.resolve(SORTS, sort, "id"), direction, cursor, size);
+    }
+    
+    public CursorPageDto<VehicleCardDto> searchVehicleCardPage(VehicleSearchDto searchDto, String sort, String direction,
+                                                               String cursor, Integer size) {
+        Query query = VehicleQueryBuilder.toQuery(searchDto);
+        query.fields().include(VehicleCardDto.FIELDS);
+        return keysetPager.page(query, Vehicle.class, KeysetSort.resolve(SORTS, sort, "id"), direction, cursor, size)
+                .map(VehicleCardDto::from);
     }
     
     public List<Vehicle> getAvailableVehicles() {
@@ -84,18 +370,44 @@ public class VehicleService {
         return vehicleRepository.findByPriceBetween(minPrice, maxPrice);
     }
     
-    public List<Vehicle> searchVehiclesByText(String searchText) {
-        return vehicleRepository.searchByMakeOrModel(searchText);
+    // Ranked by VehicleSearchIndex, then loaded from MongoDB by id in that order
+    public List<Vehicle> searchVehiclesByText(String searchText, int limit) throws IOException {
+        return loadInOrder(vehicleSearchIndex.search(searchText, limit), new Query());
+    }
+    
+    public List<VehicleCardDto> searchVehicleCardsByText(String searchText, int limit) throws IOException {
+        Query cardFields = new Query();
+        cardFields.fields().include(VehicleCardDto.FIELDS);
+        return loadInOrder(vehicleSearchIndex.search(searchText, limit), cardFields).stream()
+                .map(VehicleCardDto::from).toList();
+    }
+    
+    // Served entirely from VehicleSuggestIndex's in-memory snapshot
+    public List<SuggestionDto> suggestVehicles(String prefix, int limit) {
+        return vehicleSuggestIndex.suggest(prefix, limit);
+    }
+    
+    private List<Vehicle> loadInOrder(List<String> ids, Query query) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Vehicle> byId = new HashMap<>();
+        query.addCriteria(Criteria.where("_id").in(ids));
+        mongoTemplate.find(query, Vehicle.class).forEach(vehicle -> byId.put(vehicle.getId(), vehicle));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
     
+    // Single conditional write; a vehicle already in that status is left untouched, so repeats are harmless.
+    // Setting a status explicitly drops any reservation.
     public boolean updateVehicleStatus(String id, String status) {
-        Optional<Vehicle> vehicleOpt = vehicleRepository.findById(id);
-        if (vehicleOpt.isPresent()) {
-            Vehicle vehicle = vehicleOpt.get();
-            vehicle.setStatus(status);
-            vehicleRepository.save(vehicle);
+        UpdateResult result = mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(id).and("status").ne(status)),
+                new Update().set("status", status).unset("reservedBy").unset("reservedUntil").inc("version", 1),
+                Vehicle.class);
+        if (result.getModifiedCount() > 0) {
+            eventPublisher.publishEvent(VehicleChangedEvent.statusChanged(id));
             return true;
         }
-        return false;
+        return vehicleRepository.existsById(id);
     }
 }
@@ -0,0 +1,79 @@
+package com.example.rscarpoint.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class WeightedCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsedOverWeight() {
+        WeightedCache<String, String> cache = new WeightedCache<>(10, 100, 60_000);
+        cache.put("a", "A", 40);
+        cache.put("b", "B", 40);
+        cache.get("a");
+        cache.put("c", "C", 40);
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(80L, cache.stats().get("weight"));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    public void testEvictsOverEntryCount() {
+        WeightedCache<String, String> cache = new WeightedCache<>(2, 100, 60_000);
+        cache.put("a", "A", 1);
+        cache.put("b", "B", 1);
+        cache.put("c", "C", 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.stats().get("entries"));
+    }
+
+    @Test
+    public void testSkipsValuesHeavierThanTheCache() {
+        WeightedCache<String, String> cache = new WeightedCache<>(10, 100, 60_000);
+        cache.put("a", "A", 50);
+        cache.put("huge", "H", 101);
+
+        assertNull(cache.get("huge"));
+        assertEquals("A", cache.get("a"));
+    }
+
+    @Test
+    public void testReplacingAnEntryReplacesItsWeight() {
+        WeightedCache<String, String> cache = new WeightedCache<>(10, 100, 60_000);
+        cache.put("a", "A", 60);
+        cache.put("a", "A2", 30);
+
+        assertEquals("A2", cache.get("a"));
+        assertEquals(30L, cache.stats().get("weight"));
+    }
+
+    @Test
+    public void testExpiredEntriesAreMisses() {
+        WeightedCache<String, String> cache = new WeightedCache<>(10, 100, 0);
+        cache.put("a", "A", 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(0L, cache.stats().get("weight"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    public void testInvalidateIfReleasesWeight() {
+        WeightedCache<String, String> cache = new WeightedCache<>(10, 100, 60_000);
+        cache.put("list:1", "L1", 10);
+        cache.put("list:2", "L2", 10);
+        cache.put("vehicle:1", "V1", 10);
+
+        cache.invalidateIf(key -> key.startsWith("list:"));
+
+        assertNull(cache.get("list:1"));
+        assertEquals("V1", cache.get("vehicle:1"));
+        assertEquals(10L, cache.stats().get("weight"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.rscarpoint.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testAdminEndpointsRejectAnonymousCallers() throws Exception {
+        mockMvc.perform(post("/api/admin/indexes/ensure"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "BROKER")
+    public void testAdminEndpointsRejectBrokers() throws Exception {
+        mockMvc.perform(post("/api/admin/indexes/ensure"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/search/rebuild"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/cache/vehicles"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/users/1/revoke-tokens"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testAdminCanReadCacheStats() throws Exception {
+        mockMvc.perform(get("/api/admin/cache/vehicles"))
+                .andExpect(status().isOk());
+    }
+}
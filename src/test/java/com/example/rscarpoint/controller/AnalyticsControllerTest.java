@@ -0,0 +1,47 @@
+package com.example.rscarpoint.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AnalyticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testGetSalesSeriesForExplicitRange() throws Exception {
+        mockMvc.perform(get("/api/analytics/sales")
+                .param("from", "2024-01-01")
+                .param("to", "2024-01-10")
+                .param("interval", "day"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.interval").value("day"))
+                .andExpect(jsonPath("$.series.length()").value(10))
+                .andExpect(jsonPath("$.series[0].period").value("2024-01-01"));
+    }
+
+    @Test
+    public void testGetSalesSeriesRejectsUnknownInterval() throws Exception {
+        mockMvc.perform(get("/api/analytics/sales")
+                .param("timeRange", "1month")
+                .param("interval", "hour"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testTimeRangeEndpointsRejectUnknownRange() throws Exception {
+        for (String endpoint : new String[] {"/api/analytics/revenue", "/api/analytics/dealer-performance",
+                "/api/analytics/report", "/api/analytics/vehicle-types"}) {
+            mockMvc.perform(get(endpoint).param("timeRange", "fortnight"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.rscarpoint.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.rscarpoint.model.User;
+import com.example.rscarpoint.security.JwtUtil;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    public void testRefreshRejectsAccessToken() throws Exception {
+        User user = new User();
+        user.setEmail("broker@example.com");
+        user.setRole("broker");
+        String accessToken = jwtUtil.generateAccessToken(user);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + accessToken + "\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testRefreshRejectsMalformedToken() throws Exception {
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"not-a-jwt\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.rscarpoint.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.rscarpoint.model.User;
+import com.example.rscarpoint.model.Vehicle;
+import com.example.rscarpoint.repository.UserRepository;
+import com.example.rscarpoint.repository.VehicleRepository;
+import com.jayway.jsonpath.JsonPath;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class DealControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Test
+    @WithMockUser(roles = "BROKER")
+    public void testSecondDealOnReservedVehicleConflicts() throws Exception {
+        String brokerId = createBroker().getId();
+        String vehicleId = createVehicle("Toyota", "Vitz").getId();
+        String deal = "{\"vehicleId\": \"" + vehicleId + "\", \"brokerId\": \"" + brokerId + "\", \"salePrice\": 1500000}";
+
+        mockMvc.perform(post("/api/deals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(deal))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value("pending"));
+
+        mockMvc.perform(post("/api/deals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(deal))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(roles = "BROKER")
+    public void testDealSummariesResolveVehicleAndBrokerNames() throws Exception {
+        String brokerId = createBroker().getId();
+        String vehicleId = createVehicle("Nissan", "Leaf").getId();
+        mockMvc.perform(post("/api/deals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"vehicleId\": \"" + vehicleId + "\", \"brokerId\": \"" + brokerId
+                        + "\", \"salePrice\": 1500000}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/deals/summaries")
+                .param("vehicleId", vehicleId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].vehicleMake").value("Nissan"))
+                .andExpect(jsonPath("$[0].vehicleModel").value("Leaf"))
+                .andExpect(jsonPath("$[0].brokerName").value("Test Broker"));
+
+        mockMvc.perform(get("/api/deals/summaries")
+                .param("vehicleId", vehicleId)
+                .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].vehicleMake").value("Nissan"))
+                .andExpect(jsonPath("$.items[0].brokerName").value("Test Broker"));
+    }
+
+    @Test
+    @WithMockUser(roles = "BROKER")
+    public void testUnpagedDealsHonourFilters() throws Exception {
+        String brokerId = createBroker().getId();
+        String vehicleId = createVehicle("Mazda", "Axela").getId();
+        mockMvc.perform(post("/api/deals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"vehicleId\": \"" + vehicleId + "\", \"brokerId\": \"" + brokerId
+                        + "\", \"salePrice\": 1500000}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/deals")
+                .param("vehicleId", vehicleId)
+                .param("status", "pending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/api/deals")
+                .param("vehicleId", vehicleId)
+                .param("status", "rejected"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "BROKER")
+    public void testPutCannotReopenACompletedDeal() throws Exception {
+        String brokerId = createBroker().getId();
+        String vehicleId = createVehicle("Suzuki", "Alto").getId();
+        String body = mockMvc.perform(post("/api/deals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"vehicleId\": \"" + vehicleId + "\", \"brokerId\": \"" + brokerId
+                        + "\", \"salePrice\": 1500000}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String dealId = JsonPath.read(body, "$.id");
+
+        mockMvc.perform(put("/api/deals/" + dealId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\": \"sold-ish\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/deals/" + dealId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\": \"completed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("completed"));
+        mockMvc.perform(put("/api/deals/" + dealId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\": \"pending\", \"salePrice\": 1200000}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/deals/" + dealId))
+                .andExpect(jsonPath("$.status").value("completed"))
+                .andExpect(jsonPath("$.salePrice").value(1500000.0));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testBulkUpdateAndDeleteReportEachItem() throws Exception {
+        String brokerId = createBroker().getId();
+        String firstVehicleId = createVehicle("Kia", "Picanto").getId();
+        String secondVehicleId = createVehicle("Kia", "Sorento").getId();
+        String first = createDeal(firstVehicleId, brokerId);
+        String second = createDeal(secondVehicleId, brokerId);
+
+        mockMvc.perform(put("/api/deals/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": \"" + first + "\", \"salePrice\": 2000000},"
+                        + " {\"id\": \"" + second + "\", \"status\": \"rejected\"},"
+                        + " {\"id\": \"" + new ObjectId().toHexString() + "\", \"salePrice\": 1}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("updated"))
+                .andExpect(jsonPath("$.results[1].status").value("updated"))
+                .andExpect(jsonPath("$.results[2].status").value("failed"));
+        mockMvc.perform(get("/api/deals/" + first))
+                .andExpect(jsonPath("$.salePrice").value(2000000.0));
+
+        mockMvc.perform(delete("/api/deals/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"" + first + "\", \"" + first + "\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("deleted"))
+                .andExpect(jsonPath("$.results[1].error").value("Deal not found"));
+
+        // Both vehicles were released, by the rejection and by the delete
+        createDeal(firstVehicleId, brokerId);
+        createDeal(secondVehicleId, brokerId);
+    }
+
+    private String createDeal(String vehicleId, String brokerId) throws Exception {
+        String body = mockMvc.perform(post("/api/deals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"vehicleId\": \"" + vehicleId + "\", \"brokerId\": \"" + brokerId
+                        + "\", \"salePrice\": 1500000}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+
+    private User createBroker() {
+        User broker = new User();
+        broker.setName("Test Broker");
+        broker.setEmail("broker-" + new ObjectId().toHexString() + "@example.com");
+        broker.setRole("broker");
+        broker.setStatus("active");
+        return userRepository.save(broker);
+    }
+
+    private Vehicle createVehicle(String make, String model) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setMake(make);
+        vehicle.setModel(model);
+        vehicle.setYear(2020);
+        vehicle.setPrice(1600000.0);
+        vehicle.setStatus("Available");
+        return vehicleRepository.save(vehicle);
+    }
+}
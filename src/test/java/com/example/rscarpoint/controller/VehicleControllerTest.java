@@ -1,15 +1,22 @@
 package com.example.rscarpoint.controller;
 
+import static org.hamcrest.Matchers.equalToIgnoringCase;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.example.rscarpoint.model.Vehicle;
+import com.example.rscarpoint.repository.VehicleRepository;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 public class VehicleControllerTest {
@@ -17,6 +24,9 @@ public class VehicleControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
     @Test
     public void testGetAllVehicles() throws Exception {
         mockMvc.perform(get("/api/vehicles"))
@@ -33,6 +43,18 @@ public class VehicleControllerTest {
     }
 
     @Test
+    public void testGetVehiclesHonoursIfNoneMatch() throws Exception {
+        String eTag = mockMvc.perform(get("/api/vehicles"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/vehicles").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
     public void testCreateVehicle() throws Exception {
         String newVehicle = "{" +
                 "\"make\": \"Toyota\", " +
@@ -49,6 +71,7 @@ public class VehicleControllerTest {
     }
 
     @Test
+    @WithMockUser(roles = "ADMIN")
     public void testUpdateVehicle() throws Exception {
         String vehicleId = "2"; // Valid ID from seeded database
         String updatedVehicle = "{" +
@@ -66,10 +89,124 @@ public class VehicleControllerTest {
     }
 
     @Test
+    @WithMockUser(roles = "ADMIN")
     public void testDeleteVehicle() throws Exception {
         String vehicleId = "3"; // Valid ID from seeded database
 
         mockMvc.perform(delete("/api/vehicles/" + vehicleId))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    public void testBulkEndpointsRejectAnonymousCallers() throws Exception {
+        mockMvc.perform(post("/api/vehicles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"make\": \"Toyota\", \"model\": \"Aqua\", \"year\": 2020, \"price\": 5000000}]"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/vehicles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": \"1\", \"price\": 1}]"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/vehicles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"1\", \"2\"]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "BROKER")
+    public void testBulkEndpointsRejectBrokers() throws Exception {
+        mockMvc.perform(delete("/api/vehicles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"1\", \"2\"]"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/deals/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testBulkEndpointsReportEachItem() throws Exception {
+        mockMvc.perform(post("/api/vehicles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"make\": \"Toyota\", \"model\": \"Aqua\", \"year\": 2020, \"price\": 5000000},"
+                        + " {\"make\": \"Toyota\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("created"))
+                .andExpect(jsonPath("$.results[1].status").value("failed"));
+
+        Vehicle vehicle = new Vehicle();
+        vehicle.setMake("Honda");
+        vehicle.setModel("Vezel");
+        String id = vehicleRepository.save(vehicle).getId();
+        mockMvc.perform(delete("/api/vehicles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"" + id + "\", \"" + id + "\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("deleted"))
+                .andExpect(jsonPath("$.results[1].error").value("Vehicle not found"));
+    }
+
+    @Test
+    public void testSearchVehicles() throws Exception {
+        mockMvc.perform(get("/api/vehicles/search")
+                .param("make", "toyota")
+                .param("minYear", "2020"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].make").value("Toyota"));
+    }
+
+    @Test
+    public void testSearchFacetsIgnoreTheirOwnFilter() throws Exception {
+        mockMvc.perform(get("/api/vehicles/search")
+                .param("make", "toyota")
+                .param("view", "facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").isNumber())
+                .andExpect(jsonPath("$.makes.length()").value(greaterThan(1)))
+                .andExpect(jsonPath("$.priceBands.length()").value(5));
+    }
+
+    @Test
+    public void testSearchFacetsGroupValuesIgnoringCase() throws Exception {
+        String model = "Facet-" + new ObjectId().toHexString();
+        for (String make : new String[] {"Toyota", "toyota", "TOYOTA"}) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setMake(make);
+            vehicle.setModel(model);
+            vehicle.setStatus("Available");
+            vehicleRepository.save(vehicle);
+        }
+
+        mockMvc.perform(get("/api/vehicles/search")
+                .param("model", model)
+                .param("view", "facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.makes.length()").value(1))
+                .andExpect(jsonPath("$.makes[0].value").value(equalToIgnoringCase("toyota")))
+                .andExpect(jsonPath("$.makes[0].count").value(3));
+    }
+
+    @Test
+    public void testTextSearchToleratesTypos() throws Exception {
+        mockMvc.perform(get("/api/vehicles/search/text")
+                .param("q", "toyta corola"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].make").value("Toyota"))
+                .andExpect(jsonPath("$[0].model").value("Corolla"));
+    }
+
+    @Test
+    public void testSuggestCompletesMakePrefix() throws Exception {
+        mockMvc.perform(get("/api/vehicles/suggest")
+                .param("q", "toy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Toyota"))
+                .andExpect(jsonPath("$[0].type").value("make"));
+    }
 }
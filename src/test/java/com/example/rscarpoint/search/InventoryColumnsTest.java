@@ -0,0 +1,185 @@
+package com.example.rscarpoint.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.bson.BsonRegularExpression;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import com.example.rscarpoint.dto.VehicleCardDto;
+import com.example.rscarpoint.dto.VehicleSearchDto;
+import com.example.rscarpoint.repository.VehicleQueryBuilder;
+
+// Checks InventoryColumns against the MongoDB criteria VehicleQueryBuilder produces for the same search,
+// evaluated in memory, across row replacements, deletions and appends that cross chunk boundaries
+public class InventoryColumnsTest {
+
+    private static final String[] MAKES = {"Toyota", "toyota", "TOYOTA", "Honda", "Land Rover", "Mercedes-Benz", null};
+    private static final String[] MODELS = {"Corolla", "Aqua", "Civic", "Vezel", "Defender", "C200", null};
+    private static final String[] FUEL_TYPES = {"Petrol", "Diesel", "Hybrid", "petrol", null};
+    private static final String[] TRANSMISSIONS = {"Automatic", "Manual", "Auto", null};
+    private static final String[] STATUSES = {"Available", "available", "Reserved", "Sold", null};
+    private static final String[] TEXT_FILTERS = {null, "", "  ", "to", "YOT", "o", " honda ", "land r", "-benz", "xyz"};
+    private static final String[] STATUS_FILTERS = {null, "available", " Reserved ", "sold", "Avail"};
+
+    private final Random random = new Random(42);
+    private int nextId;
+
+    @Test
+    public void testFilterAgreesWithQueryBuilder() {
+        List<VehicleCardDto> oracle = new ArrayList<>();
+        for (int i = 0; i < InventoryColumns.CHUNK_ROWS - 10; i++) {
+            oracle.add(randomCard());
+        }
+        InventoryColumns columns = InventoryColumns.of(oracle);
+        assertAgrees(columns, oracle);
+
+        for (int step = 0; step < 600; step++) {
+            int choice = random.nextInt(10);
+            if (choice < 4 || oracle.isEmpty()) {
+                VehicleCardDto card = randomCard();
+                columns = columns.withRow(oracle.size(), card);
+                oracle.add(card);
+            } else if (choice < 8) {
+                int row = random.nextInt(oracle.size());
+                VehicleCardDto card = randomCard();
+                columns = columns.withRow(row, card);
+                oracle.set(row, card);
+            } else {
+                int row = random.nextInt(oracle.size());
+                if (oracle.get(row) != null) {
+                    columns = columns.withoutRow(row);
+                    oracle.set(row, null);
+                }
+            }
+            if (step % 25 == 0) {
+                assertAgrees(columns, oracle);
+            }
+        }
+        assertEquals(oracle.size(), columns.size());
+        assertAgrees(columns, oracle);
+    }
+
+    @Test
+    public void testUpdatesLeaveEarlierVersionsUnchanged() {
+        List<VehicleCardDto> cards = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            cards.add(randomCard());
+        }
+        InventoryColumns before = InventoryColumns.of(cards);
+        List<VehicleCardDto> expected = new ArrayList<>(cards);
+
+        InventoryColumns after = before.withRow(5, randomCard()).withoutRow(7).withRow(100, randomCard());
+
+        assertAgrees(before, expected);
+        assertEquals(100, before.size());
+        assertEquals(101, after.size());
+    }
+
+    private void assertAgrees(InventoryColumns columns, List<VehicleCardDto> oracle) {
+        for (int i = 0; i < 20; i++) {
+            VehicleSearchDto searchDto = randomSearch();
+            Document criteria = VehicleQueryBuilder.toCriteria(searchDto).getCriteriaObject();
+            List<String> expected = new ArrayList<>();
+            for (VehicleCardDto card : oracle) {
+                if (card != null && matches(criteria, card)) {
+                    expected.add(card.getId());
+                }
+            }
+            List<String> actual = columns.filter(searchDto).stream().map(VehicleCardDto::getId).toList();
+            assertEquals(expected, actual, "Search " + searchDto);
+        }
+    }
+
+    private VehicleCardDto randomCard() {
+        return new VehicleCardDto("v" + nextId++, pick(MAKES), pick(MODELS), 2000 + random.nextInt(25),
+                random.nextInt(100) * 100000.0, random.nextInt(200) * 1000, pick(FUEL_TYPES), pick(TRANSMISSIONS),
+                pick(STATUSES), null);
+    }
+
+    private VehicleSearchDto randomSearch() {
+        VehicleSearchDto searchDto = new VehicleSearchDto();
+        searchDto.setMake(pick(TEXT_FILTERS));
+        searchDto.setModel(random.nextInt(4) == 0 ? pick(MODELS) : null);
+        searchDto.setFuelType(random.nextInt(4) == 0 ? pick(TEXT_FILTERS) : null);
+        searchDto.setTransmission(random.nextInt(4) == 0 ? "auto" : null);
+        searchDto.setStatus(pick(STATUS_FILTERS));
+        if (random.nextBoolean()) {
+            searchDto.setMinPrice(random.nextInt(50) * 100000.0);
+        }
+        if (random.nextBoolean()) {
+            searchDto.setMaxYear(2005 + random.nextInt(20));
+        }
+        if (random.nextInt(3) == 0) {
+            searchDto.setMinMileage(random.nextInt(100) * 1000);
+            searchDto.setMaxMileage(searchDto.getMinMileage() + random.nextInt(100) * 1000);
+        }
+        return searchDto;
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // The subset of MongoDB query semantics VehicleQueryBuilder emits: $and, regex with options, $gte, $lte
+    private static boolean matches(Document criteria, VehicleCardDto card) {
+        for (Map.Entry<String, Object> entry : criteria.entrySet()) {
+            if ("$and".equals(entry.getKey())) {
+                for (Object predicate : (List<?>) entry.getValue()) {
+                    if (!matches((Document) predicate, card)) {
+                        return false;
+                    }
+                }
+            } else if (!matchesValue(entry.getValue(), field(card, entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesValue(Object condition, Object actual) {
+        if (condition instanceof BsonRegularExpression regex) {
+            int flags = regex.getOptions().contains("i") ? Pattern.CASE_INSENSITIVE : 0;
+            return actual instanceof String text && Pattern.compile(regex.getPattern(), flags).matcher(text).find();
+        }
+        if (condition instanceof Pattern pattern) {
+            return actual instanceof String text && pattern.matcher(text).find();
+        }
+        if (condition instanceof Document operators) {
+            double value = ((Number) actual).doubleValue();
+            for (Map.Entry<String, Object> operator : operators.entrySet()) {
+                double bound = ((Number) operator.getValue()).doubleValue();
+                boolean ok = switch (operator.getKey()) {
+                    case "$gte" -> value >= bound;
+                    case "$lte" -> value <= bound;
+                    default -> throw new IllegalArgumentException("Unexpected operator " + operator.getKey());
+                };
+                if (!ok) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return condition.equals(actual);
+    }
+
+    private static Object field(VehicleCardDto card, String name) {
+        return switch (name) {
+            case "make" -> card.getMake();
+            case "model" -> card.getModel();
+            case "fuelType" -> card.getFuelType();
+            case "transmission" -> card.getTransmission();
+            case "status" -> card.getStatus();
+            case "price" -> card.getPrice();
+            case "year" -> card.getYear();
+            case "mileage" -> card.getMileage();
+            default -> throw new IllegalArgumentException("Unexpected field " + name);
+        };
+    }
+}
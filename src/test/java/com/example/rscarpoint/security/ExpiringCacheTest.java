@@ -0,0 +1,55 @@
+package com.example.rscarpoint.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class ExpiringCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsedOverSize() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 60_000);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testNotAfterCapsTheLifetime() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60_000);
+        cache.put("expired", "E", System.currentTimeMillis() - 1);
+        cache.put("live", "L", System.currentTimeMillis() + 60_000);
+
+        assertNull(cache.get("expired"));
+        assertEquals("L", cache.get("live"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testTtlExpiresEntries() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 0);
+        cache.put("a", "A");
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testRemoveIfMatchesValues() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60_000);
+        cache.put("token1", "alice");
+        cache.put("token2", "bob");
+        cache.put("token3", "alice");
+
+        cache.removeIf("alice"::equals);
+
+        assertNull(cache.get("token1"));
+        assertNull(cache.get("token3"));
+        assertEquals("bob", cache.get("token2"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.rscarpoint.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.rscarpoint.dto.BulkItemResultDto;
+import com.example.rscarpoint.dto.BulkResultDto;
+
+public class BulkBatchesTest {
+
+    @Test
+    public void testItemsPastTheCapAreRejected() {
+        BulkBatches bulkBatches = bulkBatches(2, 3);
+        BulkResultDto result = new BulkResultDto();
+        List<List<Integer>> batches = new ArrayList<>();
+
+        bulkBatches.forEachBatch(IntStream.range(0, 5).boxed().iterator(), result,
+                batch -> batches.add(batch.stream().map(BulkBatches.Item::value).toList()));
+
+        assertEquals(List.of(List.of(0, 1), List.of(2)), batches);
+        assertEquals(1, result.getFailed());
+        BulkItemResultDto rejected = result.getResults().get(0);
+        assertEquals(3, rejected.getIndex());
+        assertTrue(rejected.getError().contains("More than 3 items"));
+    }
+
+    @Test
+    public void testMalformedItemStopsTheRequest() {
+        BulkBatches bulkBatches = bulkBatches(10, 100);
+        BulkResultDto result = new BulkResultDto();
+        List<Integer> handled = new ArrayList<>();
+        Iterator<Integer> items = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == 2) {
+                    throw new IllegalStateException("bad json");
+                }
+                return next++;
+            }
+        };
+
+        bulkBatches.forEachBatch(items, result, batch -> batch.forEach(item -> handled.add(item.value())));
+
+        assertEquals(List.of(0, 1), handled);
+        assertEquals(2, result.getResults().get(0).getIndex());
+        assertEquals("failed", result.getResults().get(0).getStatus());
+    }
+
+    @Test
+    public void testFailedWriteReportsEveryOperation() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(bulk.execute()).thenThrow(new DataAccessResourceFailureException("timed out"));
+
+        Map<Integer, String> errors = BulkBatches.execute(bulk, 3);
+
+        assertEquals(3, errors.size());
+        assertTrue(errors.get(2).contains("timed out"));
+    }
+
+    private static BulkBatches bulkBatches(int batchSize, int maxItems) {
+        BulkBatches bulkBatches = new BulkBatches();
+        ReflectionTestUtils.setField(bulkBatches, "batchSize", batchSize);
+        ReflectionTestUtils.setField(bulkBatches, "maxItems", maxItems);
+        return bulkBatches;
+    }
+}